@@ -0,0 +1,120 @@
+package com.example.android.news_reader;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scroll benchmark for {@link ArticleAdapter}: binds rows the way a fling through the list does
+ * (a handful of holders recycled over many articles, each with a thumbnail) and the way a
+ * refresh does (the rows shown bound again to the same articles), and reports the allocations
+ * per bound row.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleBindBenchmark {
+
+    private static final String LOG_TAG = ArticleBindBenchmark.class.getSimpleName();
+    private static final int ARTICLES = 2000;
+    private static final int HOLDERS = 12;
+
+    // A row with a new thumbnail costs its cache key and a load request, a few objects each.
+    private static final int MAX_ALLOCATIONS_PER_NEW_ROW = 12;
+
+    // Nothing listens here, so the thumbnail loads fail fast instead of going to the network.
+    private static final String THUMBNAIL_HOST = "http://127.0.0.1:9/";
+
+    @Test
+    public void bindingRowsAgain_allocatesLessThanOnePerRow() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ArticleAdapter adapter = newAdapter();
+                List<ArticleAdapter.ArticleViewHolder> holders = newHolders(adapter);
+
+                // Each holder shows its row once; then count allocations over binding the
+                // same rows again and again, as a refresh that changed nothing around them does.
+                bindAll(adapter, holders, HOLDERS);
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for (int round = 0; round < ARTICLES / HOLDERS; round++) {
+                    bindAll(adapter, holders, HOLDERS);
+                }
+                Debug.stopAllocCounting();
+                int allocations = Debug.getThreadAllocCount();
+
+                Log.i(LOG_TAG, String.format("%.3f allocations per row bound again",
+                        allocations / (double) ARTICLES));
+                // TextView may still allocate internally, but never once per row.
+                assertTrue(allocations < ARTICLES);
+            }
+        });
+    }
+
+    @Test
+    public void bindingRecycledRows_allocatesAHandfulPerNewRow() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ArticleAdapter adapter = newAdapter();
+                List<ArticleAdapter.ArticleViewHolder> holders = newHolders(adapter);
+
+                // One pass to warm up, then count allocations over a second pass.
+                bindAll(adapter, holders, ARTICLES);
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                bindAll(adapter, holders, ARTICLES);
+                Debug.stopAllocCounting();
+                int allocations = Debug.getThreadAllocCount();
+
+                Log.i(LOG_TAG, String.format("%.3f allocations per recycled row",
+                        allocations / (double) ARTICLES));
+                // The old bind path split the date with a regex, several objects per row; what
+                // is left is the thumbnail's key and load.
+                assertTrue(allocations < ARTICLES * MAX_ALLOCATIONS_PER_NEW_ROW);
+            }
+        });
+    }
+
+    private static ArticleAdapter newAdapter() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        ThumbnailLoader thumbnailLoader = ((NewsReaderApplication)
+                context.getApplicationContext()).getThumbnailLoader();
+        ArticleAdapter adapter = new ArticleAdapter(context, thumbnailLoader, null);
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < ARTICLES; i++) {
+            articles.add(new Article("Headline " + i, "Technology",
+                    IsoDates.parse("2018-07-23T09:30:00Z"), "Writer " + (i % 40),
+                    "https://www.theguardian.com/technology/article-" + i,
+                    THUMBNAIL_HOST + i + "/500.jpg"));
+        }
+        adapter.submitList(articles);
+        return adapter;
+    }
+
+    private static List<ArticleAdapter.ArticleViewHolder> newHolders(ArticleAdapter adapter) {
+        RecyclerView parent = new RecyclerView(InstrumentationRegistry.getTargetContext());
+        List<ArticleAdapter.ArticleViewHolder> holders = new ArrayList<>();
+        for (int i = 0; i < HOLDERS; i++) {
+            holders.add(adapter.onCreateViewHolder(parent, 0));
+        }
+        return holders;
+    }
+
+    private static void bindAll(ArticleAdapter adapter,
+                                List<ArticleAdapter.ArticleViewHolder> holders, int rows) {
+        for (int position = 0; position < rows; position++) {
+            adapter.onBindViewHolder(holders.get(position % HOLDERS), position);
+        }
+    }
+}
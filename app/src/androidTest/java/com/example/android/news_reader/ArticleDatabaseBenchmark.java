@@ -0,0 +1,108 @@
+package com.example.android.news_reader;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Benchmark for {@link ArticleDatabase}: stores 20k articles a fetched page at a time, then
+ * filters them by section and date range the way the list does, and reports how long each
+ * takes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArticleDatabaseBenchmark {
+
+    private static final String LOG_TAG = ArticleDatabaseBenchmark.class.getSimpleName();
+    private static final String DATABASE_NAME = "articles-benchmark.db";
+    private static final int ARTICLES = 20000;
+    private static final int PAGE_SIZE = FeedRequest.DEFAULT_PAGE_SIZE;
+    private static final String[] SECTIONS = {
+            "World news", "Technology", "Business", "Politics", "Sport", "Culture"};
+    private static final long MILLIS_PER_HOUR = 60L * 60 * 1000;
+
+    // A filter over a month of one section should be answered in well under a frame.
+    private static final long MAX_FILTER_MILLIS = 16;
+
+    private Context mContext;
+    private ArticleDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+        mDatabase = new ArticleDatabase(mContext, DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void filteringStoredArticles_takesMilliseconds() {
+        long start = IsoDates.parse(FeedRequest.FROM_DATE);
+        long writeStart = SystemClock.elapsedRealtime();
+        for (int first = 0; first < ARTICLES; first += PAGE_SIZE) {
+            List<Article> page = new ArrayList<>(PAGE_SIZE);
+            for (int i = first; i < Math.min(first + PAGE_SIZE, ARTICLES); i++) {
+                // About two articles an hour, over a little more than a year.
+                page.add(new Article("Headline " + i, SECTIONS[i % SECTIONS.length],
+                        start + i * MILLIS_PER_HOUR / 2, "Writer " + (i % 40),
+                        "https://www.theguardian.com/technology/article-" + i));
+            }
+            mDatabase.putAll(page);
+        }
+        long writeMillis = SystemClock.elapsedRealtime() - writeStart;
+        assertEquals(ARTICLES, mDatabase.count());
+
+        // Storing a page again updates its rows instead of adding new ones.
+        List<Article> again = new ArrayList<>();
+        again.add(new Article("Headline 0, updated", SECTIONS[0], start, "Writer 0",
+                "https://www.theguardian.com/technology/article-0"));
+        mDatabase.putAll(again);
+        assertEquals(ARTICLES, mDatabase.count());
+
+        // One section over July, as the list asks for it: run the query and read the first
+        // screen of rows.
+        long from = IsoDates.parse("2018-07-01");
+        long before = IsoDates.parse("2018-08-01");
+        long queryStart = SystemClock.elapsedRealtime();
+        Cursor cursor = mDatabase.query("Technology", null, from, before);
+        ArticleCursorList articles = new ArticleCursorList(cursor);
+        for (int i = 0; i < Math.min(PAGE_SIZE, articles.size()); i++) {
+            articles.get(i);
+        }
+        long queryMillis = SystemClock.elapsedRealtime() - queryStart;
+
+        try {
+            Log.i(LOG_TAG, String.format("stored %d articles in %d ms (%d pages); "
+                            + "filtered to %d in %d ms", ARTICLES, writeMillis,
+                    (ARTICLES + PAGE_SIZE - 1) / PAGE_SIZE, articles.size(), queryMillis));
+            // 31 days, two articles an hour, one in six in the section.
+            assertEquals(31 * 48 / SECTIONS.length, articles.size());
+            for (int i = 1; i < articles.size(); i++) {
+                assertTrue(articles.get(i - 1).getPublishedAt()
+                        >= articles.get(i).getPublishedAt());
+                assertEquals("Technology", articles.get(i).getmSection());
+            }
+            assertTrue(queryMillis < MAX_FILTER_MILLIS);
+        } finally {
+            articles.close();
+        }
+    }
+}
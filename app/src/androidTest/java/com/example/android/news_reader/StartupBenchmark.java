@@ -0,0 +1,119 @@
+package com.example.android.news_reader;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Launch benchmark for {@link MainActivity}: starts it repeatedly and reports the time from
+ * the launch to the first article row on screen, with the {@link StartupSnapshot} in place
+ * and without it (where the list waits for the cached feed or the network, as it did before
+ * the snapshot existed).
+ * <p>
+ * The first launch of each set is the coldest this test can get: the process is already up,
+ * so it is a new activity rather than a new process. For a true cold start, run
+ * {@code adb shell am force-stop com.example.android.news_reader} and then
+ * {@code adb shell am start -S -W com.example.android.news_reader/.MainActivity}, and read
+ * the "Fully drawn" line the activity reports to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String LOG_TAG = StartupBenchmark.class.getSimpleName();
+    private static final int LAUNCHES = 10;
+
+    // Give up on a launch that shows nothing in this time.
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long POLL_MILLIS = 2;
+
+    @Test
+    public void launchWithStartupSnapshot_showsArticlesFirst() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        File cacheDir = context.getCacheDir();
+
+        long[] without = new long[LAUNCHES];
+        for (int i = 0; i < LAUNCHES; i++) {
+            new File(cacheDir, StartupSnapshot.FILE_NAME).delete();
+            without[i] = launchToFirstArticle(context);
+        }
+
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < StartupSnapshot.MAX_ARTICLES; i++) {
+            articles.add(new Article("Headline " + i, "Technology",
+                    IsoDates.parse("2018-07-23T09:30:00Z") - i * 60000L, "Writer " + (i % 4),
+                    "https://www.theguardian.com/technology/article-" + i));
+        }
+        long[] with = new long[LAUNCHES];
+        for (int i = 0; i < LAUNCHES; i++) {
+            // Each launch may replace the snapshot with what it fetched; start from the same.
+            StartupSnapshot.write(cacheDir, articles);
+            with[i] = launchToFirstArticle(context);
+        }
+
+        Log.i(LOG_TAG, "without the snapshot: " + describe(without));
+        Log.i(LOG_TAG, "with the snapshot: " + describe(with));
+        for (long millis : with) {
+            assertTrue(millis >= 0);
+        }
+    }
+
+    // Returns the milliseconds from starting the activity to its first article row, or -1 if
+    // none was shown in time. The activity is finished again before returning.
+    private static long launchToFirstArticle(Context context) {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        Intent intent = new Intent(context, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+        long start = SystemClock.elapsedRealtime();
+        final Activity activity = instrumentation.startActivitySync(intent);
+        final RecyclerView list = activity.findViewById(R.id.list);
+        final boolean[] shown = new boolean[1];
+        long elapsed = -1;
+        while (SystemClock.elapsedRealtime() - start < TIMEOUT_MILLIS) {
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    shown[0] = list.getChildCount() > 0;
+                }
+            });
+            if (shown[0]) {
+                elapsed = SystemClock.elapsedRealtime() - start;
+                break;
+            }
+            SystemClock.sleep(POLL_MILLIS);
+        }
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                activity.finish();
+            }
+        });
+        instrumentation.waitForIdleSync();
+        return elapsed;
+    }
+
+    // Returns the first launch and the median of the later ones, warm.
+    private static String describe(long[] launches) {
+        long[] warm = Arrays.copyOfRange(launches, 1, launches.length);
+        Arrays.sort(warm);
+        return String.format("first launch %d ms, median warm launch %d ms (-1: nothing shown)",
+                launches[0], warm[warm.length / 2]);
+    }
+}
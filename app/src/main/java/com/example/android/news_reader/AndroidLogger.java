@@ -0,0 +1,24 @@
+package com.example.android.news_reader;
+
+import android.util.Log;
+
+/**
+ * Sends the log messages of the core library to logcat.
+ */
+public class AndroidLogger implements Logger {
+
+    @Override
+    public void v(String tag, String message) {
+        Log.v(tag, message);
+    }
+
+    @Override
+    public void w(String tag, String message, Throwable error) {
+        Log.w(tag, message, error);
+    }
+
+    @Override
+    public void e(String tag, String message, Throwable error) {
+        Log.e(tag, message, error);
+    }
+}
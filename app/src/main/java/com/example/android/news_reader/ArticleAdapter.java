@@ -16,14 +16,16 @@
 package com.example.android.news_reader;
 
 import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.recyclerview.extensions.ListAdapter;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.util.List;
-
 import butterknife.BindView;
 import butterknife.ButterKnife;
 
@@ -31,61 +33,101 @@ import butterknife.ButterKnife;
  * An {@link ArticleAdapter} knows how to create a list item layout for each article
  * in the data source (a list of {@link Article} objects).
  * <p>
- * These list item layouts will be provided to an adapter view like ListView
- * to be displayed to the user.
+ * These list item layouts will be provided to a RecyclerView to be displayed to the user.
+ * Each new list handed to {@link #submitList} is diffed against the current one on a
+ * background thread, keyed on the article's web URL, so a refresh only rebinds the rows that
+ * actually changed.
  */
 
-public class ArticleAdapter extends ArrayAdapter<Article> {
+public class ArticleAdapter extends ListAdapter<Article, ArticleAdapter.ArticleViewHolder> {
+
+    // Two rows show the same article when the web URLs match, and need no rebinding when every
+    // displayed field matches too.
+    private static final DiffUtil.ItemCallback<Article> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Article>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Article oldItem, @NonNull Article newItem) {
+                    return oldItem.getmWebUrl().equals(newItem.getmWebUrl());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Article oldItem, @NonNull Article newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    /**
+     * Callback for a tap on an article row.
+     */
+    public interface OnArticleClickListener {
+        void onArticleClick(Article article);
+    }
 
-    // Use this as a separator so that we may later break the date from the response into two parts
-    // and return only the date to our TextView.
-    private static final String LOCATION_SEPARATOR = "T";
+    private final LayoutInflater mInflater;
+    private final OnArticleClickListener mListener;
+    private final ThumbnailLoader mThumbnailLoader;
+    private final int mThumbnailWidth;
+    private final int mThumbnailHeight;
 
     /**
      * Constructs a new {@link ArticleAdapter}.
      *
-     * @param context  of the app
-     * @param articles is the list of articles, which is the data source of the adapter
+     * @param context         of the app
+     * @param thumbnailLoader loads the images of the rows
+     * @param listener        is told when an article row is tapped
      */
-    public ArticleAdapter(Context context, List<Article> articles) {
-        super(context, 0, articles);
+    public ArticleAdapter(Context context, ThumbnailLoader thumbnailLoader,
+                          OnArticleClickListener listener) {
+        super(DIFF_CALLBACK);
+        mInflater = LayoutInflater.from(context);
+        mListener = listener;
+        mThumbnailLoader = thumbnailLoader;
+        mThumbnailWidth = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_width);
+        mThumbnailHeight = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_height);
+        setHasStableIds(true);
     }
 
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
+    }
 
-    // Returns a list item view that displays information about the article at the given position
-    // in the list of articles.
+    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        // Check if there is an existing list item view (called convertView) that we can reuse,
-        // otherwise, if convertView is null, then inflate a new list item layout.
-        View listItemView = convertView;
+    public ArticleViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View listItemView = mInflater.inflate(R.layout.article_list_item, parent, false);
+        return new ArticleViewHolder(listItemView);
+    }
 
-        // Find the article at the given position in the list of articles
+    // Binds the article at the given position in the list of articles to a row. This runs for
+    // every row shown, recycled or not. The text is Strings the Article already holds; the
+    // thumbnail costs nothing when the row already shows it, and otherwise a cache key and,
+    // if the image is not in memory, a request to load it.
+    @Override
+    public void onBindViewHolder(@NonNull ArticleViewHolder vh, int position) {
+        long bindStart = Metrics.start();
         Article currentArticle = getItem(position);
-        ArticleViewHolder vh;
-        if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext()).inflate(R.layout.article_list_item, parent, false);
-            // Use the viewHolder design to reduce the number of findViewById calls.
-            vh = new ArticleViewHolder(listItemView);
-            vh.title.setText(currentArticle.getmTitle());
-            vh.section.setText(currentArticle.getmSection());
-            vh.contributor.setText(currentArticle.getmContributor());
-            // Formatting to split the date and time into different parts and return only the date.
-            String rawDate = currentArticle.getmPubDate();
-            String dateParts[] = rawDate.split(LOCATION_SEPARATOR);
-            vh.date.setText(dateParts[0]);
-
-            listItemView.setTag(vh);
-        } else {
-            vh = (ArticleViewHolder) listItemView.getTag();
-        }
+        vh.title.setText(currentArticle.getmTitle());
+        vh.section.setText(currentArticle.getmSection());
+        vh.contributor.setText(currentArticle.getmContributor());
+        // The date was cut down to the day once, when the article was parsed.
+        vh.date.setText(currentArticle.getDisplayDate());
+        // Shown from memory if it is there; otherwise fetched and decoded in the background.
+        String thumbnail = currentArticle.getThumbnail();
+        vh.thumbnail.setVisibility(thumbnail.isEmpty() ? View.GONE : View.VISIBLE);
+        mThumbnailLoader.load(thumbnail, vh.thumbnail, mThumbnailWidth, mThumbnailHeight);
+        Metrics.stop(Metrics.BIND, bindStart);
+    }
 
-        // Return the list item view that is now showing the appropriate data
-        return listItemView;
+    // A row scrolled out of view no longer needs its image.
+    @Override
+    public void onViewRecycled(@NonNull ArticleViewHolder vh) {
+        mThumbnailLoader.cancel(vh.thumbnail);
+        vh.thumbnail.setImageDrawable(null);
     }
 
     // View holder class definition and constructor
-    class ArticleViewHolder {
+    class ArticleViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
         @BindView(R.id.date)
         TextView date;
         @BindView(R.id.section)
@@ -94,9 +136,21 @@ public class ArticleAdapter extends ArrayAdapter<Article> {
         TextView title;
         @BindView(R.id.contributor)
         TextView contributor;
+        @BindView(R.id.thumbnail)
+        ImageView thumbnail;
 
         ArticleViewHolder(View listItemView) {
+            super(listItemView);
             ButterKnife.bind(this, listItemView);
+            listItemView.setOnClickListener(this);
+        }
+
+        @Override
+        public void onClick(View view) {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && mListener != null) {
+                mListener.onArticleClick(getItem(position));
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.android.news_reader;
+
+import android.database.Cursor;
+
+import java.io.Closeable;
+import java.util.AbstractList;
+
+/**
+ * The articles of an {@link ArticleDatabase} query as a read-only list, read from the cursor
+ * only when a row is asked for. The cursor keeps one window of rows in memory and fills the
+ * next as the list is scrolled, so a filter matching thousands of articles never turns them
+ * all into objects at once.
+ * <p>
+ * Use it on one thread at a time (the main thread, once handed to the adapter), and close it
+ * when it is replaced.
+ */
+public class ArticleCursorList extends AbstractList<Article> implements Closeable {
+
+    private final Cursor mCursor;
+    private final int mSize;
+
+    // The article last read, since binding a row asks for it more than once.
+    private int mLastPosition = -1;
+    private Article mLastArticle;
+
+    /**
+     * Constructs a new {@link ArticleCursorList}. Counting the rows runs the query and fills
+     * the first window, so call it off the main thread.
+     *
+     * @param cursor from {@link ArticleDatabase#query(String, String, long, long)}
+     */
+    public ArticleCursorList(Cursor cursor) {
+        mCursor = cursor;
+        mSize = cursor.getCount();
+    }
+
+    @Override
+    public Article get(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + mSize);
+        }
+        if (position != mLastPosition) {
+            mCursor.moveToPosition(position);
+            mLastArticle = ArticleDatabase.readArticle(mCursor);
+            mLastPosition = position;
+        }
+        return mLastArticle;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns true once the cursor has been closed
+     */
+    public boolean isClosed() {
+        return mCursor.isClosed();
+    }
+
+    @Override
+    public void close() {
+        mCursor.close();
+    }
+}
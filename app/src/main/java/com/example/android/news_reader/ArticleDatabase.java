@@ -0,0 +1,228 @@
+package com.example.android.news_reader;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every article the app has fetched, kept on disk so the list can be filtered by section,
+ * contributor and date without going back to the network.
+ * <p>
+ * The web URL is unique, so fetching an article again updates its row rather than adding a
+ * second one. Section and contributor are indexed together with the publication time, so a
+ * filter on either over a date range is a scan of one slice of an index that is already in
+ * date order, and nothing has to be sorted.
+ */
+public class ArticleDatabase extends SQLiteOpenHelper {
+
+    private static final String LOG_TAG = ArticleDatabase.class.getSimpleName();
+
+    /**
+     * Name of the database file
+     */
+    public static final String DATABASE_NAME = "articles.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "articles";
+    private static final String COLUMN_ID = "_id";
+    private static final String COLUMN_WEB_URL = "web_url";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_SECTION = "section";
+    private static final String COLUMN_PUBLISHED_AT = "published_at";
+    private static final String COLUMN_CONTRIBUTOR = "contributor";
+    private static final String COLUMN_THUMBNAIL = "thumbnail";
+
+    // Columns of a query, in the order readArticle() expects them.
+    private static final String COLUMNS = COLUMN_ID + ", " + COLUMN_TITLE + ", " + COLUMN_SECTION
+            + ", " + COLUMN_PUBLISHED_AT + ", " + COLUMN_CONTRIBUTOR + ", " + COLUMN_WEB_URL
+            + ", " + COLUMN_THUMBNAIL;
+
+    private static final String UPDATE = "UPDATE " + TABLE + " SET " + COLUMN_TITLE + " = ?, "
+            + COLUMN_SECTION + " = ?, " + COLUMN_PUBLISHED_AT + " = ?, " + COLUMN_CONTRIBUTOR
+            + " = ?, " + COLUMN_THUMBNAIL + " = ? WHERE " + COLUMN_WEB_URL + " = ?";
+
+    private static final String INSERT = "INSERT INTO " + TABLE + " (" + COLUMN_TITLE + ", "
+            + COLUMN_SECTION + ", " + COLUMN_PUBLISHED_AT + ", " + COLUMN_CONTRIBUTOR + ", "
+            + COLUMN_THUMBNAIL + ", " + COLUMN_WEB_URL + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Constructs a new {@link ArticleDatabase}. Nothing is opened until it is first used.
+     *
+     * @param context of the app
+     */
+    public ArticleDatabase(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Constructs a new {@link ArticleDatabase} in a file of the given name, for tests and
+     * benchmarks.
+     */
+    ArticleDatabase(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Lets the list read while a fetched page is being written.
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_WEB_URL + " TEXT NOT NULL UNIQUE, "
+                + COLUMN_TITLE + " TEXT NOT NULL, "
+                + COLUMN_SECTION + " TEXT NOT NULL, "
+                + COLUMN_PUBLISHED_AT + " INTEGER NOT NULL, "
+                + COLUMN_CONTRIBUTOR + " TEXT NOT NULL, "
+                + COLUMN_THUMBNAIL + " TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX " + TABLE + "_published_at ON " + TABLE
+                + " (" + COLUMN_PUBLISHED_AT + ")");
+        db.execSQL("CREATE INDEX " + TABLE + "_section ON " + TABLE
+                + " (" + COLUMN_SECTION + ", " + COLUMN_PUBLISHED_AT + ")");
+        db.execSQL("CREATE INDEX " + TABLE + "_contributor ON " + TABLE
+                + " (" + COLUMN_CONTRIBUTOR + ", " + COLUMN_PUBLISHED_AT + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything in here can be fetched again.
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Stores a fetched page of articles in a single transaction, updating the rows of the
+     * articles already stored. Call it off the main thread.
+     */
+    public void putAll(List<Article> articles) {
+        if (articles == null || articles.isEmpty()) {
+            return;
+        }
+        long writeStart = Metrics.start();
+        SQLiteStatement update = null;
+        SQLiteStatement insert = null;
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            // One transaction per page: a single journal sync instead of one per article.
+            db.beginTransaction();
+            try {
+                update = db.compileStatement(UPDATE);
+                insert = db.compileStatement(INSERT);
+                for (Article article : articles) {
+                    bind(update, article);
+                    if (update.executeUpdateDelete() == 0) {
+                        bind(insert, article);
+                        insert.executeInsert();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            // The feed is still shown; it just can't be filtered offline until the next write.
+            Log.e(LOG_TAG, "Problem storing the articles.", e);
+        } finally {
+            if (update != null) {
+                update.close();
+            }
+            if (insert != null) {
+                insert.close();
+            }
+        }
+        Metrics.stop(Metrics.STORE_WRITE, writeStart);
+    }
+
+    // Binds the fields of the article in the order UPDATE and INSERT share.
+    private static void bind(SQLiteStatement statement, Article article) {
+        statement.clearBindings();
+        statement.bindString(1, article.getmTitle());
+        statement.bindString(2, article.getmSection());
+        statement.bindLong(3, article.getPublishedAt());
+        statement.bindString(4, article.getmContributor());
+        statement.bindString(5, article.getThumbnail());
+        statement.bindString(6, article.getmWebUrl());
+    }
+
+    /**
+     * Returns the stored articles that match, newest first. Rows are read a window at a time
+     * as the cursor moves; read them with {@link #readArticle(Cursor)}. Call it off the main
+     * thread, and close the cursor when done.
+     *
+     * @param section         is the section name to match, or null for every section
+     * @param contributor     is the contributor to match, or null for every contributor
+     * @param publishedFrom   is the earliest publication time, inclusive
+     * @param publishedBefore is the latest publication time, exclusive
+     */
+    public Cursor query(String section, String contributor, long publishedFrom,
+                        long publishedBefore) {
+        StringBuilder where = new StringBuilder(COLUMN_PUBLISHED_AT + " >= ? AND "
+                + COLUMN_PUBLISHED_AT + " < ?");
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(publishedFrom));
+        args.add(String.valueOf(publishedBefore));
+        if (section != null) {
+            where.append(" AND " + COLUMN_SECTION + " = ?");
+            args.add(section);
+        }
+        if (contributor != null) {
+            where.append(" AND " + COLUMN_CONTRIBUTOR + " = ?");
+            args.add(contributor);
+        }
+        String sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE " + where
+                + " ORDER BY " + COLUMN_PUBLISHED_AT + " DESC";
+        return getReadableDatabase().rawQuery(sql, args.toArray(new String[args.size()]));
+    }
+
+    /**
+     * Returns the names of the sections the stored articles belong to, in alphabetical order,
+     * read off the section index. Call it off the main thread.
+     */
+    public List<String> sections() {
+        List<String> sections = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().rawQuery("SELECT DISTINCT " + COLUMN_SECTION
+                    + " FROM " + TABLE + " ORDER BY " + COLUMN_SECTION, null);
+            while (cursor.moveToNext()) {
+                sections.add(cursor.getString(0));
+            }
+        } catch (SQLiteException e) {
+            // Nothing to filter by until the next write.
+            Log.e(LOG_TAG, "Problem reading the sections.", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Returns the article in the row the cursor is on, for a cursor from
+     * {@link #query(String, String, long, long)}
+     */
+    public static Article readArticle(Cursor cursor) {
+        return new Article(cursor.getString(1), cursor.getString(2), cursor.getLong(3),
+                cursor.getString(4), cursor.getString(5), cursor.getString(6));
+    }
+
+    /**
+     * Returns the number of articles stored
+     */
+    public long count() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE);
+    }
+}
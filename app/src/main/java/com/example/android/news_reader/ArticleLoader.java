@@ -1,16 +1,41 @@
 package com.example.android.news_reader;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.content.Loader;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
- * Loads a list of earthquakes by using an AsyncTask to perform the
- * network request to the given URL.
+ * Loads a list of articles by running the network requests of the given {@link FeedRequest}
+ * on the app's {@link FetchEngine}, at the priority the caller asks for.
+ * <p>
+ * Loading is stale-while-revalidate: the articles stored by {@link ArticleCache} for the request
+ * are delivered first, then the request is fetched again in the background and a second result
+ * is delivered only if the articles changed. Coming back to the activity reloads only once the
+ * articles shown are older than {@link #FRESH_FOR}.
+ * <p>
+ * Once articles are held, going back to the network asks only for what was published since
+ * the newest of them (see {@link FeedSync#refreshNewer}), which is what makes
+ * {@link #refresh()} a small download. Each page fetched is also stored in the
+ * {@link ArticleDatabase}, in one transaction, so it can be filtered later without the network.
+ * <p>
+ * The loader of the first screen at launch can show {@link StartupSnapshot} before anything
+ * else: it needs neither the preferences nor the network code, which are only read and set up
+ * afterwards, on the loader's thread. Checking the snapshot against the feed then waits for
+ * {@link #onFirstFrame()}, so it doesn't compete with drawing it. Whichever loader fetches the
+ * first screen, at launch or after the settings changed, writes the snapshot again once what it
+ * shows is confirmed current and differs from what it last wrote.
+ * <p>
+ * Cancelling the loader (when it is restarted for other settings, or abandoned) cancels its
+ * job, which disconnects a request that is still reading, so no more than one load per loader
+ * is ever talking to the network.
  */
-public class ArticleLoader extends AsyncTaskLoader<List<Article>> {
+public class ArticleLoader extends Loader<List<Article>> {
 
     /**
      * Tag for log messages
@@ -18,40 +43,442 @@ public class ArticleLoader extends AsyncTaskLoader<List<Article>> {
     private static final String LOG_TAG = ArticleLoader.class.getName();
 
     /**
-     * Query URL
+     * A feed confirmed current less than this long ago is shown without asking the network
+     * again.
      */
-    private final String mUrl;
+    private static final long FRESH_FOR = 15 * 60 * 1000;
+
+    /**
+     * The page of the feed to load, and the results per topic on it
+     */
+    private final int mPage;
+    private final int mPageSize;
+
+    /**
+     * Query URLs, one per followed topic or section, read from the preferences by the first
+     * load, off the main thread
+     */
+    private volatile FeedRequest mRequest;
+
+    /**
+     * The {@link FeedPreferences#getVersion()} of the settings mRequest was read from. Written
+     * before mRequest.
+     */
+    private volatile int mPreferencesVersion;
+
+    /**
+     * Runs the loads, and the priority they run at
+     */
+    private final FetchEngine mEngine;
+    private final int mPriority;
+
+    /**
+     * Keeps every page fetched
+     */
+    private final ArticleDatabase mDatabase;
+
+    /**
+     * True if the loader shows the startup snapshot before it has read anything else
+     */
+    private final boolean mStartupSnapshotFirst;
+
+    /**
+     * True if the loader fetches the first screen, so what it confirms current is what the
+     * next launch shows first
+     */
+    private final boolean mWritesStartupSnapshot;
+
+    /**
+     * The list this loader last wrote to the startup snapshot. Only touched by its jobs, one
+     * at a time.
+     */
+    private volatile List<Article> mWrittenToSnapshot;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The load in progress, if any. Only touched on the main thread, like every field below.
+     */
+    private FetchEngine.Job<Result> mJob;
+
+    /**
+     * The articles most recently handed to the callbacks.
+     */
+    private List<Article> mArticles;
+
+    /**
+     * True once a load has finished, even if it found nothing.
+     */
+    private boolean mLoaded;
+
+    /**
+     * True once a result has been handed to the callbacks, even if that result was null.
+     */
+    private boolean mDelivered;
+
+    /**
+     * When the articles were last confirmed current, in {@link SystemClock#elapsedRealtime()}
+     * time, or 0 if they never were.
+     */
+    private long mValidatedAt;
+
+    /**
+     * True once the disk cache has been consulted for this loader.
+     */
+    private boolean mCacheChecked;
+
+    /**
+     * True while a {@link #refresh()} is waiting for its result to be delivered.
+     */
+    private boolean mRefreshRequested;
+
+    /**
+     * True once the startup snapshot has been looked for, found or not.
+     */
+    private boolean mStartupSnapshotChecked;
+
+    /**
+     * True while the articles held are the startup snapshot's, which may belong to the feed of
+     * other settings and so must not have the network's new articles merged onto them.
+     */
+    private boolean mHoldingStartupSnapshot;
+
+    /**
+     * True while the startup snapshot is on screen and waits for {@link #onFirstFrame()} to
+     * be checked against the feed.
+     */
+    private boolean mRevalidateAfterFirstFrame;
 
     /**
      * Constructs a new {@link ArticleLoader}.
      *
-     * @param context of the activity
-     * @param url     to load data from
+     * @param context                of the activity
+     * @param page                   is the page of the user's feed to load
+     * @param pageSize               is the number of results to ask for per topic
+     * @param engine                 runs the load
+     * @param database               stores what is fetched
+     * @param priority               is one of the {@link FetchEngine} priorities
+     * @param firstScreen            is true for the loader of the list's first screen, which
+     *                               keeps the {@link StartupSnapshot} up to date
+     * @param startupSnapshotFirst   is true to show the {@link StartupSnapshot} first, for the
+     *                               first screen at launch
      */
-    public ArticleLoader(Context context, String url) {
+    public ArticleLoader(Context context, int page, int pageSize, FetchEngine engine,
+                         ArticleDatabase database, int priority, boolean firstScreen,
+                         boolean startupSnapshotFirst) {
         super(context);
-        mUrl = url;
+        mPage = page;
+        mPageSize = pageSize;
+        mEngine = engine;
+        mDatabase = database;
+        mPriority = priority;
+        mWritesStartupSnapshot = firstScreen && page == 1;
+        mStartupSnapshotFirst = startupSnapshotFirst && mWritesStartupSnapshot;
     }
 
-    @Override
-    protected void onStartLoading() {
-        forceLoad();
-        Log.v(LOG_TAG, "Loader is starting to load, interface cleared");
+    /**
+     * Returns the page of the results this loader fetches
+     */
+    public int getPage() {
+        return mPage;
+    }
+
+    /**
+     * Returns true if the settings changed after this loader read its feed from them. A loader
+     * that has not read them yet will read the current ones, so it is not out of date.
+     */
+    public boolean isOutOfDate() {
+        // mRequest is read first: if it is set, so is the version it was read with.
+        return mRequest != null && mPreferencesVersion != FeedPreferences.getVersion();
     }
 
     /**
-     * This is on a background thread.
+     * Tells the loader the activity has drawn its first frame of articles, so the startup
+     * snapshot on screen can now be checked against the feed. Call it on the main thread.
      */
+    public void onFirstFrame() {
+        if (mRevalidateAfterFirstFrame) {
+            mRevalidateAfterFirstFrame = false;
+            onContentChanged();
+        }
+    }
+
+    /**
+     * Fetches whatever was published since the articles held, for pull-to-refresh. Unlike the
+     * loads the loader starts on its own, this one is always delivered, even if nothing
+     * changed, so the caller can tell when it is over.
+     */
+    public void refresh() {
+        mRefreshRequested = true;
+        forceLoad();
+    }
+
     @Override
-    public List<Article> loadInBackground() {
-        if (mUrl == null) {
-            Log.v(LOG_TAG, "Loader Loaded in Background is null");
-            return null;
+    protected void onStartLoading() {
+        if (mLoaded) {
+            // Hand back what we already have straight away.
+            mDelivered = true;
+            super.deliverResult(mArticles);
         }
+        if (takeContentChanged() || !mLoaded || isStale()) {
+            forceLoad();
+        } else {
+            Log.v(LOG_TAG, "Loader started, articles still fresh");
+        }
+    }
+
+    // True if the articles shown have not been checked against the network for a while.
+    private boolean isStale() {
+        return mValidatedAt == 0 || SystemClock.elapsedRealtime() - mValidatedAt > FRESH_FOR;
+    }
+
+    @Override
+    protected void onForceLoad() {
+        // A newer load replaces the one in flight.
+        cancelJob();
+        final boolean checkStartupSnapshot = mStartupSnapshotFirst && !mStartupSnapshotChecked;
+        final boolean checkCache = !mCacheChecked;
+        final List<Article> current = mArticles;
+        final boolean currentIsSnapshot = mHoldingStartupSnapshot;
+        mJob = mEngine.submit(mPriority, new Callable<Result>() {
+            @Override
+            public Result call() {
+                if (checkStartupSnapshot) {
+                    List<Article> shown = StartupSnapshot.read(getContext().getCacheDir());
+                    if (shown != null) {
+                        Log.v(LOG_TAG, "Loader Loaded the startup snapshot");
+                        return new Result(shown, true, 0, true);
+                    }
+                }
+                FeedRequest request = getOrReadRequest();
+                Result result = null;
+                if (checkCache) {
+                    result = loadCached(request);
+                }
+                if (result == null) {
+                    result = loadFromNetwork(request, current, currentIsSnapshot);
+                }
+                updateStartupSnapshot(result);
+                return result;
+            }
+        }, new FetchEngine.Callback<Result>() {
+            @Override
+            public void onResult(final FetchEngine.Job<Result> job, final Result result) {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onJobFinished(job, result);
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    protected boolean onCancelLoad() {
+        // The job is dropped or its socket closed right here, so as far as the LoaderManager
+        // is concerned there is nothing left running to wait for.
+        cancelJob();
+        return false;
+    }
+
+    @Override
+    protected void onAbandon() {
+        cancelJob();
+    }
+
+    private void cancelJob() {
+        if (mJob != null) {
+            mJob.cancel();
+            mJob = null;
+        }
+    }
+
+    // Runs on the main thread once a job that was not cancelled is done.
+    private void onJobFinished(FetchEngine.Job<Result> job, Result result) {
+        if (job != mJob) {
+            // Superseded or cancelled after it finished.
+            return;
+        }
+        mJob = null;
+        mStartupSnapshotChecked = true;
+        // A failed fetch hands back the snapshot it was given.
+        mHoldingStartupSnapshot = result != null && (result.mStartupSnapshot
+                || (mHoldingStartupSnapshot && result.mArticles == mArticles));
+        mCacheChecked = result == null || !result.mStartupSnapshot;
+        if (result == null) {
+            // The work itself threw; keep showing whatever we have.
+            if (mRefreshRequested) {
+                deliverResult(mArticles);
+            }
+            return;
+        }
+        if (result.mValidatedAt != 0) {
+            mValidatedAt = result.mValidatedAt;
+        }
+        deliverResult(result.mArticles);
+
+        // A stored list was just shown; now check it against the network, straight away if
+        // the loader is started and otherwise as soon as it is. The startup snapshot waits
+        // until it has been drawn.
+        if (result.mStartupSnapshot) {
+            mRevalidateAfterFirstFrame = true;
+        } else if (result.mRevalidate) {
+            onContentChanged();
+        }
+    }
+
+    // Returns the request, reading it from the preferences the first time. This is on a
+    // background thread.
+    private FeedRequest getOrReadRequest() {
+        FeedRequest request = mRequest;
+        if (request == null) {
+            // Taken before reading, so a change made meanwhile still counts as newer.
+            mPreferencesVersion = FeedPreferences.getVersion();
+            request = FeedPreferences.read(getContext(), mPage, mPageSize);
+            mRequest = request;
+        }
+        return request;
+    }
 
-        // Perform the network request, parse the response, and extract a list of articles.
-        List<Article> articles = QueryUtils.fetchArticleData(mUrl);
-        Log.v(LOG_TAG, "Loader Loaded in Background is not null");
-        return articles;
+    // Serves the request from memory or disk, or returns null if neither has it. This is on a
+    // background thread.
+    private Result loadCached(FeedRequest request) {
+        String cacheKey = request.getCacheKey();
+
+        // Fetched moments ago by an earlier loader: nothing to revalidate yet.
+        List<Article> remembered = QueryUtils.getMemoryCache().get(cacheKey);
+        if (remembered != null) {
+            Log.v(LOG_TAG, "Loader Loaded from memory");
+            return new Result(remembered, false, SystemClock.elapsedRealtime(), false);
+        }
+
+        CachedResponse cached = ArticleCache.read(getContext().getCacheDir(), cacheKey);
+        if (cached != null) {
+            // Let the revalidating request send the stored validators.
+            QueryUtils.putCachedResponse(cached);
+            // Skip the network entirely if the background prefetch has only just checked
+            // this feed.
+            long validatedAt = ArticleCache.lastValidated(getContext().getCacheDir(), cacheKey);
+            QueryUtils.getMemoryCache().put(cacheKey, cached.getArticles(), validatedAt);
+            long age = System.currentTimeMillis() - validatedAt;
+            boolean revalidate = age < 0 || age > FRESH_FOR;
+            Log.v(LOG_TAG, revalidate ? "Loader Loaded from cache, revalidating"
+                    : "Loader Loaded from cache, still fresh");
+            indexLater(cached.getArticles());
+            return new Result(cached.getArticles(), revalidate,
+                    revalidate ? 0 : SystemClock.elapsedRealtime() - age, false);
+        }
+
+        // Nothing stored for this exact feed: show what the articles already downloaded have
+        // on its topics, then merge in the network results on the next pass.
+        if (request.getPage() == 1) {
+            List<Article> local = FeedSync.searchLocal(request);
+            if (!local.isEmpty()) {
+                Log.v(LOG_TAG, "Loader Loaded from the local index, fetching");
+                return new Result(local, true, 0, false);
+            }
+        }
+        return null;
+    }
+
+    // Adds stored articles to the search index once the loads waiting on the engine are done.
+    // Indexing reads every row, which for a snapshot means decoding all of them, so it is kept
+    // off the load that shows the first screen.
+    private void indexLater(final List<Article> articles) {
+        mEngine.submit(FetchEngine.PRIORITY_PREFETCH, new Callable<Void>() {
+            @Override
+            public Void call() {
+                QueryUtils.getIndex().addAll(articles);
+                return null;
+            }
+        }, null);
+    }
+
+    // Fetches the request. Articles from the startup snapshot are not merged into: they may
+    // be another feed's, so the feed is fetched in full. This is on a background thread.
+    private Result loadFromNetwork(FeedRequest request, List<Article> current,
+                                   boolean currentIsSnapshot) {
+        List<Article> held = currentIsSnapshot ? null : current;
+        List<Article> articles = FeedSync.refreshNewer(getContext().getCacheDir(), request, held);
+        if (articles == null) {
+            // The request failed (or was cancelled), keep showing whatever was cached.
+            return new Result(current, false, 0, false);
+        }
+        if (articles == held) {
+            Log.v(LOG_TAG, "Loader revalidated, nothing changed");
+        } else {
+            Log.v(LOG_TAG, "Loader Loaded in Background is not null");
+            mDatabase.putAll(articles);
+        }
+        return new Result(articles, false, SystemClock.elapsedRealtime(), false);
+    }
+
+    // Makes what the first screen now shows, once confirmed current, what the next launch
+    // shows first; the list this loader last wrote is not written again. This is on a
+    // background thread.
+    private void updateStartupSnapshot(Result result) {
+        if (!mWritesStartupSnapshot || result.mValidatedAt == 0
+                || result.mArticles == mWrittenToSnapshot) {
+            return;
+        }
+        StartupSnapshot.write(getContext().getCacheDir(), result.mArticles);
+        mWrittenToSnapshot = result.mArticles;
+    }
+
+    @Override
+    public void deliverResult(List<Article> articles) {
+        if (isReset()) {
+            return;
+        }
+
+        // Only hand over a result that differs from the one already on screen, unless a
+        // refresh is waiting to hear that it is done.
+        boolean changed = !mDelivered || articles != mArticles || mRefreshRequested;
+        mArticles = articles;
+        mLoaded = true;
+        if (isStarted() && changed) {
+            mDelivered = true;
+            mRefreshRequested = false;
+            super.deliverResult(articles);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelJob();
+        mArticles = null;
+        mLoaded = false;
+        mDelivered = false;
+        mValidatedAt = 0;
+        mCacheChecked = false;
+        mRefreshRequested = false;
+        mStartupSnapshotChecked = false;
+        mHoldingStartupSnapshot = false;
+        mRevalidateAfterFirstFrame = false;
+    }
+
+    // What one pass of the load found.
+    private static class Result {
+
+        final List<Article> mArticles;
+
+        // True if the articles came from a store and the network is still to be asked.
+        final boolean mRevalidate;
+
+        // When the articles were confirmed current, or 0 if they were not.
+        final long mValidatedAt;
+
+        // True if the articles are the startup snapshot, read before the request was known.
+        final boolean mStartupSnapshot;
+
+        Result(List<Article> articles, boolean revalidate, long validatedAt,
+               boolean startupSnapshot) {
+            mArticles = articles;
+            mRevalidate = revalidate;
+            mValidatedAt = validatedAt;
+            mStartupSnapshot = startupSnapshot;
+        }
     }
-}
\ No newline at end of file
+}
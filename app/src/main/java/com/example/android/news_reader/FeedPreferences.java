@@ -0,0 +1,84 @@
+package com.example.android.news_reader;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Helper methods related to turning the user's feed settings into a {@link FeedRequest}.
+ */
+public final class FeedPreferences {
+
+    // Number of times the settings changed in this process. Only written on the main thread.
+    private static volatile int sVersion;
+
+    // Counts the changes. Held here because the preferences only keep a weak reference to it.
+    private static final SharedPreferences.OnSharedPreferenceChangeListener sChangeListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences preferences,
+                                                      String key) {
+                    sVersion++;
+                }
+            };
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedPreferences} object.
+     */
+    private FeedPreferences() {
+    }
+
+    /**
+     * Starts reading the preferences file on a thread of the platform's, without waiting for
+     * it, so the first {@link #read} finds it in memory instead of reading it right then, and
+     * starts counting changes to the settings for {@link #getVersion()}. Call it once, when
+     * the app starts.
+     *
+     * @param context of the app
+     */
+    public static void preload(Context context) {
+        // Registering does not wait for the file to be read.
+        PreferenceManager.getDefaultSharedPreferences(context)
+                .registerOnSharedPreferenceChangeListener(sChangeListener);
+    }
+
+    /**
+     * Returns the number of times the settings changed since the app started. A request read
+     * with an older version may be out of date. Unlike {@link #read}, this never waits.
+     */
+    public static int getVersion() {
+        return sVersion;
+    }
+
+    /**
+     * Builds the request for one page of the feed from the user's preferences. This waits for
+     * the preferences file to be read, so call it off the main thread when the app has only
+     * just started.
+     *
+     * @param context  of the app
+     * @param page     is the page of the results to ask for
+     * @param pageSize is the number of results to ask for per topic
+     */
+    public static FeedRequest read(Context context, int page, int pageSize) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        String orderBy = sharedPrefs.getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default_value));
+
+        String topics = sharedPrefs.getString(
+                context.getString(R.string.settings_topic_key),
+                context.getString(R.string.settings_topic_default_value));
+
+        Set<String> sections = sharedPrefs.getStringSet(
+                context.getString(R.string.settings_sections_key),
+                Collections.<String>emptySet());
+
+        return FeedRequest.create(BuildConfig.THE_GUARDIAN_API_KEY, orderBy, topics, sections,
+                context.getString(R.string.settings_topic_default_value), page, pageSize,
+                ArticleProjection.LIST);
+    }
+}
@@ -18,24 +18,30 @@ package com.example.android.news_reader;
 import android.app.LoaderManager;
 import android.app.LoaderManager.LoaderCallbacks;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.Loader;
-import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
+import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
+import android.view.ViewTreeObserver;
 import android.widget.TextView;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Main Activity of the app, uses loader with associated necessary callbacks to create and run app
@@ -43,77 +49,279 @@ import java.util.List;
 
 public class MainActivity extends AppCompatActivity implements LoaderCallbacks<List<Article>> {
 
-    // URL for article data from The Guardian
-    private static final String BASE_REQUEST_URL = "https://content.guardianapis.com/search?";
-
-    private static final String apiKey = BuildConfig.THE_GUARDIAN_API_KEY;
-
     // Constant value for the content loader ID. We can choose any integer.
     private static final int CONTENT_LOADER_ID = 1;
 
+    // Loader ID used for every page after the first one, one page at a time.
+    private static final int PAGE_LOADER_ID = 2;
+
+    // Loader ID of the stored articles of one section, read from the database.
+    private static final int FILTER_LOADER_ID = 3;
+
+    // Bundle key for the page a page loader should fetch.
+    private static final String ARG_PAGE = "page";
+
+    // Bundle key for the section name the list is filtered to.
+    private static final String ARG_SECTION = "section";
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // Results requested per page, and how many pages are held in memory at once.
+    private static final int PAGE_SIZE = FeedRequest.DEFAULT_PAGE_SIZE;
+    private static final int MAX_PAGES_IN_MEMORY = 10;
+
+    // Start fetching the next page when the user is this many rows from the end of the list.
+    private static final int PREFETCH_DISTANCE = 10;
+
+    // Rows kept ready for reuse, sized so a full fling doesn't have to inflate new rows.
+    private static final int VIEW_POOL_SIZE = 20;
+    private static final int VIEW_CACHE_SIZE = 4;
+
     // Adapter for the list of articles
     private ArticleAdapter mAdapter;
 
     // TextView that is displayed when the list is empty
     private TextView mEmptyStateTextView;
 
+    // Pull-to-refresh around the list
+    private SwipeRefreshLayout mSwipeRefreshLayout;
+
+    // The list of articles
+    private RecyclerView mArticleListView;
+    private LinearLayoutManager mLayoutManager;
+
+    // Pages of results currently held
+    private final ArticlePager mPager = new ArticlePager(PAGE_SIZE, MAX_PAGES_IN_MEMORY);
+
+    // The section the list is filtered to, or null while it shows the feed
+    private String mFilterSection;
+
+    // True while onCreate sets up the first screen's loader, which then starts from the
+    // startup snapshot
+    private boolean mCreating;
+
+    // True once the first articles were drawn and the work held back until then was started
+    private boolean mFirstFrameDrawn;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        ListView articleListView = findViewById(R.id.list);
+        mArticleListView = findViewById(R.id.list);
 
         mEmptyStateTextView = findViewById(R.id.EmptyView);
-        articleListView.setEmptyView(mEmptyStateTextView);
-
-        mAdapter = new ArticleAdapter(this, new ArrayList<Article>());
 
-        articleListView.setAdapter(mAdapter);
-
-        // Anon OnItemClickListener, so that when an article is selected then launch an intent to the
-        // source article it is referencing.
-        articleListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Pulling the list down fetches only what was published since the newest article
+        // held, and merges it in on top.
+        mSwipeRefreshLayout = findViewById(R.id.swipe_refresh);
+        mSwipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                // Find the current article that was clicked on
-                Article currentArticle = mAdapter.getItem(position);
-
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri articleUri = Uri.parse(currentArticle.getmWebUrl());
-
-                // Create a new intent to view the article URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, articleUri);
+            public void onRefresh() {
+                ArticleLoader loader = (ArticleLoader) getLoaderManager()
+                        .<List<Article>>getLoader(CONTENT_LOADER_ID);
+                if (loader != null) {
+                    loader.refresh();
+                } else {
+                    getLoaderManager().restartLoader(CONTENT_LOADER_ID, null, MainActivity.this);
+                }
+            }
+        });
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
+        ThumbnailLoader thumbnailLoader =
+                ((NewsReaderApplication) getApplication()).getThumbnailLoader();
+
+        // Anon OnArticleClickListener, so that when an article is selected then launch an intent
+        // to the source article it is referencing.
+        mAdapter = new ArticleAdapter(this, thumbnailLoader,
+                new ArticleAdapter.OnArticleClickListener() {
+                    @Override
+                    public void onArticleClick(Article currentArticle) {
+                        // Convert the String URL into a URI object (to pass into the Intent
+                        // constructor)
+                        Uri articleUri = Uri.parse(currentArticle.getmWebUrl());
+
+                        // Create a new intent to view the article URI
+                        Intent websiteIntent = new Intent(Intent.ACTION_VIEW, articleUri);
+
+                        // Send the intent to launch a new activity
+                        startActivity(websiteIntent);
+                    }
+                });
+
+        mLayoutManager = new LinearLayoutManager(this);
+        mArticleListView.setLayoutManager(mLayoutManager);
+        mArticleListView.setHasFixedSize(true);
+        mArticleListView.setItemViewCacheSize(VIEW_CACHE_SIZE);
+        mArticleListView.getRecycledViewPool().setMaxRecycledViews(0, VIEW_POOL_SIZE);
+        mArticleListView.setAdapter(mAdapter);
+
+        // Prefetch the next page while the user is still a few rows away from the end, and
+        // load evicted pages again when they scroll back up.
+        mArticleListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int totalItemCount = mLayoutManager.getItemCount();
+                if (totalItemCount == 0 || mFilterSection != null) {
+                    return;
+                }
+                int firstVisibleItem = mLayoutManager.findFirstVisibleItemPosition();
+                int lastVisibleItem = mLayoutManager.findLastVisibleItemPosition();
+                if (dy >= 0 && lastVisibleItem >= totalItemCount - PREFETCH_DISTANCE
+                        && mPager.hasNextPage()) {
+                    loadPage(mPager.getLastPage() + 1);
+                } else if (dy <= 0 && firstVisibleItem <= PREFETCH_DISTANCE
+                        && mPager.hasPreviousPage()) {
+                    loadPage(mPager.getFirstPage() - 1);
+                }
             }
         });
 
-        // Get a reference to the ConnectivityManager to check state of network connectivity
-        ConnectivityManager connMgr = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        // Get a reference to the LoaderManager, in order to interact with loaders.
+        LoaderManager loaderManager = getLoaderManager();
+
+        // Initialize the loader even without a network connection: the loader serves the
+        // articles cached from the last successful fetch first, then revalidates them.
+        // Pass in the int ID constant defined above and pass in null for the bundle. Pass in
+        // this activity for the LoaderCallbacks parameter (which is valid because this activity
+        // implements the LoaderCallbacks interface).
+        mCreating = true;
+        loaderManager.initLoader(CONTENT_LOADER_ID, null, this);
+        mCreating = false;
+
+        // Back from a rotation with a filter on: reconnect to its loader.
+        if (savedInstanceState != null) {
+            String section = savedInstanceState.getString(ARG_SECTION);
+            if (section != null) {
+                showSection(section);
+            }
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Coming back from the settings: if they changed, replace the loader. Restarting
+        // cancels the old load, socket and all, however often the settings were toggled. The
+        // check is a counter, so the main thread never waits for the preferences file.
+        ArticleLoader loader = (ArticleLoader) getLoaderManager().<List<Article>>getLoader(
+                CONTENT_LOADER_ID);
+        if (loader != null && loader.isOutOfDate()) {
+            getLoaderManager().destroyLoader(PAGE_LOADER_ID);
+            // The pages held belong to the old feed.
+            mPager.clear();
+            getLoaderManager().restartLoader(CONTENT_LOADER_ID, null, this);
+        }
+    }
 
-        // Get details on the currently active default data network
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(ARG_SECTION, mFilterSection);
+    }
 
-        // If there is a network connection, fetch data
-        if (networkInfo != null && networkInfo.isConnected()) {
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
+    // Lets the user pick a section to filter the stored articles by, or go back to the feed.
+    // The choices are the section names the stored articles carry, read off the main thread.
+    private void chooseSection() {
+        final ArticleDatabase database =
+                ((NewsReaderApplication) getApplication()).getArticleDatabase();
+        ((NewsReaderApplication) getApplication()).getFetchEngine().submit(
+                FetchEngine.PRIORITY_VISIBLE, new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        return database.sections();
+                    }
+                }, new FetchEngine.Callback<List<String>>() {
+                    @Override
+                    public void onResult(FetchEngine.Job<List<String>> job,
+                                         final List<String> sections) {
+                        runOnUiThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (sections != null && !isFinishing()) {
+                                    showSectionChoices(sections);
+                                }
+                            }
+                        });
+                    }
+                });
+    }
 
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(CONTENT_LOADER_ID, null, this);
+    // Shows the sections to choose from, after the whole feed.
+    private void showSectionChoices(List<String> sections) {
+        final String[] choices = new String[sections.size() + 1];
+        choices[0] = getString(R.string.filter_whole_feed);
+        for (int i = 0; i < sections.size(); i++) {
+            choices[i + 1] = sections.get(i);
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.filter_title)
+                .setItems(choices, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        if (which == 0) {
+                            showFeed();
+                        } else {
+                            showSection(choices[which]);
+                        }
+                    }
+                })
+                .show();
+    }
+
+    // Shows the stored articles of the section, over the feed's date range, from the database.
+    private void showSection(String section) {
+        Bundle args = new Bundle();
+        args.putString(ARG_SECTION, section);
+        boolean restart = mFilterSection != null && !mFilterSection.equals(section);
+        mFilterSection = section;
+        // Pulling to refresh fetches the feed, not the filter.
+        mSwipeRefreshLayout.setEnabled(false);
+        if (restart) {
+            getLoaderManager().restartLoader(FILTER_LOADER_ID, args, this);
         } else {
-            // Otherwise, display error
-            // First, hide loading indicator so error message will be visible
-            View loadingIndicator = findViewById(R.id.progressbar);
-            loadingIndicator.setVisibility(View.GONE);
+            getLoaderManager().initLoader(FILTER_LOADER_ID, args, this);
+        }
+    }
+
+    // Goes back to the pages of the feed.
+    private void showFeed() {
+        if (mFilterSection == null) {
+            return;
+        }
+        mFilterSection = null;
+        mSwipeRefreshLayout.setEnabled(true);
+        // Resetting the loader hands the list back to the feed (see onLoaderReset).
+        getLoaderManager().destroyLoader(FILTER_LOADER_ID);
+        mEmptyStateTextView.setText(R.string.no_articles);
+        mEmptyStateTextView.setVisibility(
+                mPager.getArticles().isEmpty() ? View.VISIBLE : View.GONE);
+    }
 
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setText(R.string.no_network);
+    // Starts loading the given page, unless it is already on its way.
+    private void loadPage(int page) {
+        if (mPager.getLoadingPage() == page) {
+            return;
         }
+        mPager.setLoadingPage(page);
+        Bundle args = new Bundle();
+        args.putInt(ARG_PAGE, page);
+        getLoaderManager().restartLoader(PAGE_LOADER_ID, args, this);
+    }
+
+    /**
+     * Prints the fetch, parse, bind and image metrics and the cache counters, for
+     * "adb shell dumpsys activity com.example.android.news_reader".
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        Metrics.dump(writer);
+        ArticleMemoryCache cache = QueryUtils.getMemoryCache();
+        writer.printf("  %-16s hits=%d misses=%d articles=%d%n", "memory.cache",
+                cache.getHitCount(), cache.getMissCount(), cache.size());
+        ((NewsReaderApplication) getApplication()).getThumbnailLoader().dump(writer);
+        writer.flush();
     }
 
     @Override
@@ -125,6 +333,10 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
+        if (id == R.id.action_filter) {
+            chooseSection();
+            return true;
+        }
         if (id == R.id.action_settings) {
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
             startActivity(settingsIntent);
@@ -135,50 +347,121 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
 
     @Override
     public Loader<List<Article>> onCreateLoader(int i, Bundle bundle) {
+        NewsReaderApplication application = (NewsReaderApplication) getApplication();
+
+        if (i == FILTER_LOADER_ID) {
+            // The same date range the feed asks The Guardian for, whole days.
+            long from = IsoDates.parse(FeedRequest.FROM_DATE);
+            long before = IsoDates.parse(FeedRequest.TO_DATE) + MILLIS_PER_DAY;
+            return new StoredArticleLoader(this, application.getArticleDatabase(),
+                    bundle.getString(ARG_SECTION), from, before);
+        }
 
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
-
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default_value));
-
-        String topic = sharedPrefs.getString(
-                getString(R.string.settings_topic_key),
-                getString(R.string.settings_topic_default_value));
+        int page = bundle == null ? 1 : bundle.getInt(ARG_PAGE, 1);
 
-        Uri baseUri = Uri.parse(BASE_REQUEST_URL);
+        // The first page is what the user is looking at; later pages are fetched ahead of the
+        // scroll and can wait for it.
+        int priority = i == CONTENT_LOADER_ID
+                ? FetchEngine.PRIORITY_VISIBLE : FetchEngine.PRIORITY_NEXT_PAGE;
 
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+        // Create a new loader for the given page. It reads the followed topics and sections
+        // itself, off the main thread, and at launch shows the last screen before that.
+        return new ArticleLoader(this, page, PAGE_SIZE, application.getFetchEngine(),
+                application.getArticleDatabase(), priority, i == CONTENT_LOADER_ID,
+                i == CONTENT_LOADER_ID && mCreating);
 
-        uriBuilder.appendQueryParameter("from-date", "2018-01-01");
-        uriBuilder.appendQueryParameter("to-date", "2018-12-31");
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
-        uriBuilder.appendQueryParameter("order-by", orderBy);
-        uriBuilder.appendQueryParameter("q", topic);
-        uriBuilder.appendQueryParameter("api-key", apiKey);
+    }
 
-        // Create a new loader for the given URL
-        return new ArticleLoader(this, uriBuilder.toString());
+    // Once the first articles are on screen, tells the system (for the "Fully drawn" launch
+    // time), lets the loader check them against the feed, and starts what launch left out:
+    // the HTTP client and the parser, and the background prefetch.
+    private void afterFirstFrame(final ArticleLoader loader) {
+        final View list = mArticleListView;
+        list.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        list.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // Posted from the pre-draw, this runs once the frame has been drawn.
+                        list.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                                    reportFullyDrawn();
+                                }
+                                loader.onFirstFrame();
+                                warmUp();
+                            }
+                        });
+                        return true;
+                    }
+                });
+    }
 
+    // Sets up the network code behind the first screen, so the first fetch doesn't pay for
+    // it, and keeps the cache warm between launches.
+    private void warmUp() {
+        NewsReaderApplication application = (NewsReaderApplication) getApplication();
+        application.getFetchEngine().submit(FetchEngine.PRIORITY_PREFETCH,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        QueryUtils.warmUp();
+                        return null;
+                    }
+                }, null);
+        PrefetchJobService.schedule(this);
     }
 
     @Override
     public void onLoadFinished(Loader<List<Article>> loader, List<Article> articles) {
+        if (loader.getId() == FILTER_LOADER_ID) {
+            // Nothing in common with the list shown, so skip the diff (which would read every
+            // row) and hand the adapter the cursor-backed list as it is.
+            mAdapter.submitList(null);
+            mAdapter.submitList(articles);
+            findViewById(R.id.progressbar).setVisibility(View.GONE);
+            mEmptyStateTextView.setText(R.string.filter_no_articles);
+            mEmptyStateTextView.setVisibility(articles.isEmpty() ? View.VISIBLE : View.GONE);
+            return;
+        }
+
+        int page = ((ArticleLoader) loader).getPage();
+        boolean changed = mPager.onPageLoaded(page, articles);
+
+        // While filtered, the feed keeps loading in the background for when the filter is
+        // cleared.
+        if (changed && mFilterSection == null) {
+            // Hand the adapter a new list; it is diffed against the current one off the main
+            // thread and only the rows that changed are bound again. RecyclerView keeps the
+            // visible rows in place when rows above them come or go.
+            mAdapter.submitList(new ArrayList<>(mPager.getArticles()));
+        }
+
+        // Only the first page decides what the empty list says.
+        if (page != 1 || loader.getId() != CONTENT_LOADER_ID) {
+            return;
+        }
+        mSwipeRefreshLayout.setRefreshing(false);
+        if (!mFirstFrameDrawn) {
+            mFirstFrameDrawn = true;
+            afterFirstFrame((ArticleLoader) loader);
+        }
+        if (mFilterSection != null) {
+            return;
+        }
+
         // Hide loading indicator because the data has been loaded
         View loadingIndicator = findViewById(R.id.progressbar);
         loadingIndicator.setVisibility(View.GONE);
 
         // Set empty state text to display "No articles found."
         mEmptyStateTextView.setText(R.string.no_articles);
+        mEmptyStateTextView.setVisibility(
+                mPager.getArticles().isEmpty() ? View.VISIBLE : View.GONE);
 
-        // Clear the adapter of previous article data
-        mAdapter.clear();
-
-        // If there is a valid list of {@link article}s, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (articles != null && !articles.isEmpty()) {
-            mAdapter.addAll(articles);
-        } else {
+        // If there is no valid list of {@link article}s, explain why the list is empty.
+        if (articles == null || articles.isEmpty()) {
             ConnectivityManager connManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
             NetworkInfo netInfo = connManager.getActiveNetworkInfo();
             final boolean isConnected;
@@ -191,7 +474,11 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
                 isConnected = netInfo.isConnected();
             }
 
-            if (isConnected) {
+            if (isConnected && articles == null) {
+                // The requests failed even after retrying, which is not the same as an empty
+                // result.
+                mEmptyStateTextView.setText(R.string.fetch_failed);
+            } else if (isConnected) {
                 // Set empty state text to display "No Articles Found."
                 mEmptyStateTextView.setText(R.string.no_articles);
             } else {
@@ -203,7 +490,16 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
 
     @Override
     public void onLoaderReset(Loader<List<Article>> loader) {
-        // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+        // Loader reset, so we can clear out our existing data. Resetting a page loader only
+        // means another page is on its way.
+        if (loader.getId() == CONTENT_LOADER_ID) {
+            mAdapter.submitList(null);
+        } else if (loader.getId() == FILTER_LOADER_ID) {
+            // Its cursor is about to be closed; let go of it and show the feed again.
+            mAdapter.submitList(null);
+            if (mFilterSection == null) {
+                mAdapter.submitList(new ArrayList<>(mPager.getArticles()));
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.example.android.news_reader;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+
+/**
+ * Application class of the app, sends the core library's logs to logcat, turns on metrics in
+ * debug builds, holds the fetch engine, article database and thumbnail loader shared by every
+ * activity and service, and gives back the memory held by the process-wide caches when the system runs low.
+ */
+public class NewsReaderApplication extends Application {
+
+    // Feed loads running at once. Each merged feed already fetches its topics in parallel.
+    private static final int FETCH_THREADS = 2;
+
+    private FetchEngine mFetchEngine;
+    private ThumbnailLoader mThumbnailLoader;
+    private ArticleDatabase mArticleDatabase;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // The fetch and parse code lives in the plain-Java core module; route its logs to logcat.
+        Logging.setLogger(new AndroidLogger());
+        // Timing the hot paths is for debug builds; release builds skip it.
+        Metrics.setEnabled(BuildConfig.DEBUG);
+        // Process-wide, so set once here, before the first connection creates the pool.
+        PooledHttpClient.configureKeepAlive(QueryUtils.MAX_CONNECTIONS_PER_HOST);
+        // Read in the background while the first activity is created, and watched for changes
+        // from then on; the first feed load needs them, the first frame doesn't.
+        FeedPreferences.preload(this);
+        mFetchEngine = new FetchEngine(FETCH_THREADS, "article-load");
+        mThumbnailLoader = new ThumbnailLoader(this);
+        // Opened on first use, off the main thread.
+        mArticleDatabase = new ArticleDatabase(this);
+    }
+
+    /**
+     * Returns the engine every feed load runs on, the page on screen first
+     */
+    public FetchEngine getFetchEngine() {
+        return mFetchEngine;
+    }
+
+    /**
+     * Returns the loader of the list's thumbnails, whose memory cache outlives activities
+     */
+    public ThumbnailLoader getThumbnailLoader() {
+        return mThumbnailLoader;
+    }
+
+    /**
+     * Returns the database of every article fetched, for filtering without the network
+     */
+    public ArticleDatabase getArticleDatabase() {
+        return mArticleDatabase;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        mThumbnailLoader.trimMemory(level);
+        ArticleMemoryCache cache = QueryUtils.getMemoryCache();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            // The process is next in line to be killed, or the foreground is starved.
+            cache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.getMaxSize() / 2);
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            QueryUtils.getIndex().clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        QueryUtils.getMemoryCache().evictAll();
+        mThumbnailLoader.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+}
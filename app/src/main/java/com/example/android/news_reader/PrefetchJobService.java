@@ -0,0 +1,114 @@
+package com.example.android.news_reader;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Periodically fetches the first page of the user's feed while the app is closed, so the
+ * next launch shows it straight from {@link ArticleCache}, and stores it in
+ * {@link ArticleDatabase}, so it can be filtered by section without the network.
+ * <p>
+ * Every followed topic and section is fetched in the same run (see
+ * {@link QueryUtils#fetchArticleData(java.util.List, boolean)}), so the radio wakes once per
+ * sync, and only on an unmetered network while the device is charging. JobScheduler needs
+ * API 21; older devices simply load the feed when the app opens.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class PrefetchJobService extends JobService {
+
+    private static final String LOG_TAG = PrefetchJobService.class.getSimpleName();
+
+    // Id of the periodic prefetch job. We can choose any integer.
+    private static final int PREFETCH_JOB_ID = 1;
+
+    // How often the feed is prefetched, at most.
+    private static final long PREFETCH_INTERVAL = 3 * 60 * 60 * 1000;
+
+    // The run in progress, if any.
+    private FetchEngine.Job<Boolean> mJob;
+
+    /**
+     * Schedules the periodic prefetch, unless it is already scheduled.
+     *
+     * @param context of the app
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        JobScheduler scheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) {
+            return;
+        }
+        // Scheduling again would restart the period, so leave a pending job alone.
+        for (JobInfo pending : scheduler.getAllPendingJobs()) {
+            if (pending.getId() == PREFETCH_JOB_ID) {
+                return;
+            }
+        }
+
+        JobInfo.Builder builder = new JobInfo.Builder(PREFETCH_JOB_ID,
+                new ComponentName(context, PrefetchJobService.class))
+                .setPeriodic(PREFETCH_INTERVAL)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true);
+        }
+        if (scheduler.schedule(builder.build()) != JobScheduler.RESULT_SUCCESS) {
+            Log.e(LOG_TAG, "Could not schedule the feed prefetch.");
+        }
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final Context context = getApplicationContext();
+        NewsReaderApplication application = (NewsReaderApplication) getApplication();
+        final ArticleDatabase database = application.getArticleDatabase();
+        FetchEngine engine = application.getFetchEngine();
+        // Queued behind anything the user is waiting on, should the app be open.
+        mJob = engine.submit(FetchEngine.PRIORITY_PREFETCH, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                FeedRequest request = FeedPreferences.read(
+                        context, 1, FeedRequest.DEFAULT_PAGE_SIZE);
+                List<Article> articles = FeedSync.prefetch(context.getCacheDir(), request);
+                if (articles == null) {
+                    return false;
+                }
+                // Stored even when unchanged: the cache may predate the database.
+                database.putAll(articles);
+                return true;
+            }
+        }, new FetchEngine.Callback<Boolean>() {
+            @Override
+            public void onResult(FetchEngine.Job<Boolean> job, Boolean stored) {
+                // Let the scheduler back off and retry a failed run.
+                jobFinished(params, stored == null || !stored);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The constraints no longer hold; give up this run and try again later.
+        if (mJob != null) {
+            mJob.cancel();
+            mJob = null;
+        }
+        return true;
+    }
+}
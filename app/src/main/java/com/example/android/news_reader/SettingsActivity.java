@@ -3,11 +3,15 @@ package com.example.android.news_reader;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class SettingsActivity extends AppCompatActivity {
 
     @Override
@@ -27,6 +31,12 @@ public class SettingsActivity extends AppCompatActivity {
 
             Preference topic = findPreference(getString(R.string.settings_topic_key));
             bindPreferenceSummaryToValue(topic);
+
+            Preference sections = findPreference(getString(R.string.settings_sections_key));
+            sections.setOnPreferenceChangeListener(this);
+            SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(sections.getContext());
+            onPreferenceChange(sections, preferences.getStringSet(sections.getKey(),
+                    Collections.<String>emptySet()));
         }
 
         /**
@@ -35,6 +45,25 @@ public class SettingsActivity extends AppCompatActivity {
          */
         @Override
         public boolean onPreferenceChange(Preference preference, Object value) {
+            if (preference instanceof MultiSelectListPreference) {
+                // List the labels of the selected sections, in the order they are offered.
+                MultiSelectListPreference multiSelect = (MultiSelectListPreference) preference;
+                Set<?> selected = (Set<?>) value;
+                CharSequence[] labels = multiSelect.getEntries();
+                CharSequence[] values = multiSelect.getEntryValues();
+                StringBuilder summary = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (selected.contains(values[i].toString())) {
+                        if (summary.length() > 0) {
+                            summary.append(", ");
+                        }
+                        summary.append(labels[i]);
+                    }
+                }
+                preference.setSummary(summary.length() > 0
+                        ? summary : getString(R.string.settings_sections_none));
+                return true;
+            }
             String stringValue = value.toString();
             if (preference instanceof ListPreference) {
                 ListPreference listPreference = (ListPreference) preference;
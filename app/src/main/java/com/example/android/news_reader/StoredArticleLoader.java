@@ -0,0 +1,106 @@
+package com.example.android.news_reader;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.database.Cursor;
+
+import java.util.List;
+
+/**
+ * Loads the articles of one section and date range from the {@link ArticleDatabase}, without
+ * the network. The result is an {@link ArticleCursorList}, which the loader closes once it is
+ * replaced or the loader is reset.
+ * <p>
+ * This runs on the loaders' own background thread rather than the {@link FetchEngine}, so a
+ * query that takes milliseconds never waits behind a slow feed download.
+ */
+public class StoredArticleLoader extends AsyncTaskLoader<List<Article>> {
+
+    private final ArticleDatabase mDatabase;
+    private final String mSection;
+    private final long mPublishedFrom;
+    private final long mPublishedBefore;
+
+    // The list handed to the callbacks last, closed when it is replaced.
+    private ArticleCursorList mArticles;
+
+    /**
+     * Constructs a new {@link StoredArticleLoader}.
+     *
+     * @param context         of the activity
+     * @param database        holds the articles
+     * @param section         is the section name to show, or null for every section
+     * @param publishedFrom   is the earliest publication time, inclusive
+     * @param publishedBefore is the latest publication time, exclusive
+     */
+    public StoredArticleLoader(Context context, ArticleDatabase database, String section,
+                               long publishedFrom, long publishedBefore) {
+        super(context);
+        mDatabase = database;
+        mSection = section;
+        mPublishedFrom = publishedFrom;
+        mPublishedBefore = publishedBefore;
+    }
+
+    @Override
+    public List<Article> loadInBackground() {
+        long queryStart = Metrics.start();
+        Cursor cursor = mDatabase.query(mSection, null, mPublishedFrom, mPublishedBefore);
+        // Counting runs the query and fills the first window here rather than on the main
+        // thread.
+        ArticleCursorList articles = new ArticleCursorList(cursor);
+        Metrics.stop(Metrics.STORE_QUERY, queryStart);
+        return articles;
+    }
+
+    @Override
+    public void deliverResult(List<Article> articles) {
+        ArticleCursorList list = (ArticleCursorList) articles;
+        if (isReset()) {
+            close(list);
+            return;
+        }
+        ArticleCursorList old = mArticles;
+        mArticles = list;
+        if (isStarted()) {
+            super.deliverResult(list);
+        }
+        if (old != null && old != list) {
+            close(old);
+        }
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mArticles != null) {
+            deliverResult(mArticles);
+        }
+        if (takeContentChanged() || mArticles == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    public void onCanceled(List<Article> articles) {
+        close((ArticleCursorList) articles);
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        close(mArticles);
+        mArticles = null;
+    }
+
+    private static void close(ArticleCursorList articles) {
+        if (articles != null && !articles.isClosed()) {
+            articles.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.android.news_reader;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads article thumbnails into the rows of the list without holding up scrolling.
+ * <p>
+ * Images are downloaded into an {@link ImageDiskCache} and decoded off the main thread, cut
+ * down while decoding to the size they are shown at, and kept in a memory cache bounded in
+ * bytes. A row that scrolls away before its image arrives cancels the load, and the newest
+ * request is served first, so a fling doesn't leave a queue of images nobody will see.
+ */
+public class ThumbnailLoader {
+
+    // Decoding is CPU bound and downloads share a few connections; two threads keep both busy
+    // without taking a core from the UI thread.
+    private static final int THREADS = 2;
+
+    // The memory cache gets an eighth of the app's heap, but no more than this.
+    private static final int MAX_MEMORY_CACHE_BYTES = 16 * 1024 * 1024;
+
+    private static final long DISK_CACHE_BYTES = 20 * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "thumbnails";
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final ImageDiskCache mDiskCache;
+    private final ThreadPoolExecutor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructs a new {@link ThumbnailLoader}. Create one per process; it is meant to outlive
+     * activities, so its memory cache survives a rotation.
+     *
+     * @param context of the app
+     */
+    public ThumbnailLoader(Context context) {
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
+        mMemoryCache = new LruCache<String, Bitmap>(
+                Math.min(memoryClassBytes / 8, MAX_MEMORY_CACHE_BYTES)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mDiskCache = new ImageDiskCache(
+                new File(context.getCacheDir(), DISK_CACHE_DIR), DISK_CACHE_BYTES);
+
+        // Last in, first out: the rows just scrolled to are the ones on screen.
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        return offerFirst(runnable);
+                    }
+                }, new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, "thumbnail-" + mCount.incrementAndGet());
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Shows the image at the URL in the view, straight away if it is in memory and otherwise
+     * once it has been loaded. Whatever the view was loading before is cancelled, and a view
+     * that already shows or is loading the URL is left as it is, without allocating. Call it
+     * on the main thread.
+     *
+     * @param url    of the image, or "" to clear the view
+     * @param view   to show the image in
+     * @param width  the view is shown at, in pixels
+     * @param height the view is shown at, in pixels
+     */
+    public void load(String url, ImageView view, int width, int height) {
+        if (url.equals(view.getTag(R.id.thumbnail_url))) {
+            return;
+        }
+        cancel(view);
+        view.setTag(R.id.thumbnail_url, url);
+        if (url.isEmpty()) {
+            view.setImageDrawable(null);
+            return;
+        }
+        String key = url + '@' + width + 'x' + height;
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            Metrics.count(Metrics.IMAGE_MEMORY_HITS, 1);
+            view.setImageBitmap(bitmap);
+            return;
+        }
+        view.setImageDrawable(null);
+        Request request = new Request(url, key, view, width, height);
+        view.setTag(R.id.thumbnail_request, request);
+        mExecutor.execute(request.mFuture);
+    }
+
+    /**
+     * Cancels the load into the view, if there is one, for example when its row is recycled.
+     * The next {@link #load} into the view starts afresh.
+     */
+    public void cancel(ImageView view) {
+        view.setTag(R.id.thumbnail_url, null);
+        Request request = (Request) view.getTag(R.id.thumbnail_request);
+        if (request != null) {
+            view.setTag(R.id.thumbnail_request, null);
+            if (request.mFuture.cancel(false)) {
+                Metrics.count(Metrics.IMAGE_CANCELLED, 1);
+            }
+        }
+    }
+
+    /**
+     * Gives back memory when the system asks, as passed to
+     * {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mMemoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Prints the memory and disk cache sizes and hit counts.
+     */
+    public void dump(PrintWriter writer) {
+        writer.printf("  %-16s hits=%d misses=%d bytes=%d/%d%n", "bitmap.cache",
+                mMemoryCache.hitCount(), mMemoryCache.missCount(), mMemoryCache.size(),
+                mMemoryCache.maxSize());
+        writer.printf("  %-16s images=%d bytes=%d/%d queued=%d%n", "image.disk",
+                mDiskCache.count(), mDiskCache.size(), DISK_CACHE_BYTES,
+                mExecutor.getQueue().size());
+    }
+
+    /**
+     * Returns the largest power of two to divide both sides of an image by that still leaves
+     * it at least as big as the view it is shown in.
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= reqWidth
+                && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    // Decodes the file at a size close to the view's, in a format with no alpha channel, which
+    // needs half the memory of the default and is all a photo needs.
+    private static Bitmap decode(File file, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(
+                options.outWidth, options.outHeight, width, height);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    // One image on its way to one view.
+    private class Request implements Runnable {
+
+        private final String mUrl;
+        private final String mKey;
+        private final ImageView mView;
+        private final int mWidth;
+        private final int mHeight;
+        private final FutureTask<Void> mFuture = new FutureTask<>(this, null);
+
+        Request(String url, String key, ImageView view, int width, int height) {
+            mUrl = url;
+            mKey = key;
+            mView = view;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public void run() {
+            // Another row may have asked for the same image while this one waited.
+            Bitmap bitmap = mMemoryCache.get(mKey);
+            if (bitmap == null) {
+                File file = mDiskCache.fetch(QueryUtils.getHttpTransport(), mUrl);
+                if (file == null || mFuture.isCancelled()) {
+                    return;
+                }
+                long decodeStart = Metrics.start();
+                bitmap = decode(file, mWidth, mHeight);
+                Metrics.stop(Metrics.IMAGE_DECODE, decodeStart);
+                if (bitmap == null) {
+                    return;
+                }
+                mMemoryCache.put(mKey, bitmap);
+            }
+
+            final Bitmap result = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    // The view may have been recycled for another article in the meantime.
+                    if (mView.getTag(R.id.thumbnail_request) == Request.this) {
+                        mView.setTag(R.id.thumbnail_request, null);
+                        mView.setImageBitmap(result);
+                    }
+                }
+            });
+        }
+    }
+}
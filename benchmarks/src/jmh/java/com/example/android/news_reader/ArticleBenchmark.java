@@ -0,0 +1,58 @@
+package com.example.android.news_reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds {@link Article}s from freshly parsed strings: timestamp parsing, interning of the
+ * shared strings and the display date.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArticleBenchmark {
+
+    private static final int VARIANTS = 1024;
+    private static final String[] SECTIONS = {
+            "World news", "Technology", "Business", "Politics", "Sport", "Culture"};
+
+    private final String[] mTitles = new String[VARIANTS];
+    private final String[] mSections = new String[VARIANTS];
+    private final String[] mDates = new String[VARIANTS];
+    private final String[] mContributors = new String[VARIANTS];
+    private final String[] mUrls = new String[VARIANTS];
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < VARIANTS; i++) {
+            mTitles[i] = "Headline number " + i + " about markets, ledgers and the people";
+            // New String instances, as the parser would hand them over.
+            mSections[i] = new String(SECTIONS[i % SECTIONS.length]);
+            mDates[i] = String.format(Locale.US, "2018-%02d-%02dT%02d:%02d:00Z",
+                    1 + i % 12, 1 + i % 28, i % 24, i % 60);
+            mContributors[i] = "Writer " + (i % 40);
+            mUrls[i] = GuardianResponses.webUrl(i);
+        }
+    }
+
+    @Benchmark
+    public Article construct() {
+        int i = mNext++ & (VARIANTS - 1);
+        return new Article(mTitles[i], mSections[i], IsoDates.parse(mDates[i]),
+                mContributors[i], mUrls[i]);
+    }
+
+    @Benchmark
+    public long parseDate() {
+        return IsoDates.parse(mDates[mNext++ & (VARIANTS - 1)]);
+    }
+}
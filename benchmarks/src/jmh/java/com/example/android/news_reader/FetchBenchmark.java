@@ -0,0 +1,48 @@
+package com.example.android.news_reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches a search end to end from an in-process HTTP stand-in: pooled connection, gzip,
+ * streaming parse. The server sends no validators, so every fetch downloads the full body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int results;
+
+    private LocalGuardianServer mServer;
+    private String mUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        mServer = new LocalGuardianServer();
+        mServer.setResponse(GuardianResponses.searchBytes(results), null);
+        mUrl = mServer.url("q=bitcoin&page-size=" + results);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Benchmark
+    public List<Article> fetch() {
+        return QueryUtils.fetchArticleData(mUrl);
+    }
+}
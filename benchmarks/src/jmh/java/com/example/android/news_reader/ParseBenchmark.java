@@ -0,0 +1,55 @@
+package com.example.android.news_reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Parses Guardian search responses of 10 to 1000 results from memory, plain and gzipped as
+ * they come off the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int results;
+
+    private byte[] mBody;
+    private byte[] mGzipBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        mBody = GuardianResponses.searchBytes(results);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(mBody);
+        out.close();
+        mGzipBody = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Article> parse() {
+        return QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(mBody));
+    }
+
+    @Benchmark
+    public List<Article> parseGzip() throws IOException {
+        return QueryUtils.extractArticlesFromStream(
+                new GZIPInputStream(new ByteArrayInputStream(mGzipBody)));
+    }
+}
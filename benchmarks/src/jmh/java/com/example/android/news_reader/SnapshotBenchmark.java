@@ -0,0 +1,138 @@
+package com.example.android.news_reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a stored list of articles three ways: re-parsing the Guardian JSON, Java
+ * serialization, and a memory-mapped {@link ArticleSnapshot}, either for the first screen of
+ * rows or for every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SnapshotBenchmark {
+
+    // Rows on the first screen of the list.
+    private static final int VISIBLE_ROWS = 12;
+
+    @Param({"5000"})
+    public int articles;
+
+    private byte[] mJson;
+    private byte[] mSerialized;
+    private File mSnapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        mJson = GuardianResponses.searchBytes(articles);
+
+        List<Article> parsed = new ArrayList<>();
+        ArticleJsonReader reader = new ArticleJsonReader(new ByteArrayInputStream(mJson));
+        while (reader.hasNext()) {
+            parsed.add(reader.next());
+        }
+        reader.close();
+
+        ArrayList<SerializedArticle> serializable = new ArrayList<>();
+        for (Article article : parsed) {
+            serializable.add(new SerializedArticle(article));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(serializable);
+        out.close();
+        mSerialized = bytes.toByteArray();
+
+        mSnapshot = File.createTempFile("articles", ".snapshot");
+        ArticleSnapshot.write(mSnapshot, parsed);
+        System.out.println("\nbytes: json " + mJson.length + ", serialized " + mSerialized.length
+                + ", snapshot " + mSnapshot.length());
+    }
+
+    @TearDown
+    public void tearDown() {
+        mSnapshot.delete();
+    }
+
+    @Benchmark
+    public void json(Blackhole blackhole) throws IOException {
+        ArticleJsonReader reader = new ArticleJsonReader(new ByteArrayInputStream(mJson));
+        while (reader.hasNext()) {
+            blackhole.consume(reader.next());
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void javaSerialization(Blackhole blackhole) throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(mSerialized));
+        for (SerializedArticle article : (List<SerializedArticle>) in.readObject()) {
+            blackhole.consume(article.toArticle());
+        }
+        in.close();
+    }
+
+    @Benchmark
+    public void snapshotFirstScreen(Blackhole blackhole) throws IOException {
+        ArticleSnapshot snapshot = ArticleSnapshot.open(mSnapshot);
+        for (int i = 0; i < VISIBLE_ROWS; i++) {
+            blackhole.consume(snapshot.get(i));
+        }
+    }
+
+    @Benchmark
+    public void snapshotAll(Blackhole blackhole) throws IOException {
+        ArticleSnapshot snapshot = ArticleSnapshot.open(mSnapshot);
+        for (int i = 0; i < snapshot.size(); i++) {
+            blackhole.consume(snapshot.get(i));
+        }
+    }
+
+    // Article itself is not Serializable; this carries the same fields.
+    private static class SerializedArticle implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String mTitle;
+        private final String mSection;
+        private final long mPublishedAt;
+        private final String mContributor;
+        private final String mWebUrl;
+        private final String mThumbnail;
+
+        SerializedArticle(Article article) {
+            mTitle = article.getmTitle();
+            mSection = article.getmSection();
+            mPublishedAt = article.getPublishedAt();
+            mContributor = article.getmContributor();
+            mWebUrl = article.getmWebUrl();
+            mThumbnail = article.getThumbnail();
+        }
+
+        Article toArticle() {
+            return new Article(mTitle, mSection, mPublishedAt, mContributor, mWebUrl,
+                    mThumbnail);
+        }
+    }
+}
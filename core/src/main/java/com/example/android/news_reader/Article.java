@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.news_reader;
+
+/**
+ * An {@link Article} object contains information related to a single earthquake.
+ * <p>
+ * The publication time is kept as epoch milliseconds, parsed once when the response is read,
+ * and the strings many articles share (section, contributor) come from the
+ * {@link StringPool}, so a long list holds each of them only once.
+ * <p>
+ * This class has no Android dependencies.
+ */
+public class Article {
+
+// Required params
+
+    private final String mTitle;
+    private final String mSection;
+    private final long mPublishedAt;
+    private final String mWebUrl;
+    private final String mContributor;
+
+    // Url of the article's main image, or "" if it has none.
+    private final String mThumbnail;
+
+    // Publication date without the time of day, worked out once so binding a row is free.
+    private final String mDisplayDate;
+
+    // 64-bit hash of the web URL. Worked out up front into a final field, so an article handed
+    // from a fetch thread to the main thread never shows a half-written id.
+    private final long mStableId;
+
+
+    /**
+     * Constructs a new {@link Article} object.
+     *
+     * @param title       is the human readable title of the article
+     * @param section     is the section that the article was published in
+     * @param publishedAt is the time the article was published, in milliseconds since the epoch
+     * @param contributor is the name of the first contributor of the article
+     * @param webUrl      is the url that will launch a web intert and go to the article selected.
+     */
+
+    public Article(String title, String section, long publishedAt, String contributor, String webUrl) {
+        this(title, section, publishedAt, contributor, webUrl, "");
+    }
+
+    /**
+     * Constructs a new {@link Article} object with a thumbnail.
+     *
+     * @param title       is the human readable title of the article
+     * @param section     is the section that the article was published in
+     * @param publishedAt is the time the article was published, in milliseconds since the epoch
+     * @param contributor is the name of the first contributor of the article
+     * @param webUrl      is the url that will launch a web intert and go to the article selected.
+     * @param thumbnail   is the url of the article's main image, or "" if it has none
+     */
+    public Article(String title, String section, long publishedAt, String contributor,
+                   String webUrl, String thumbnail) {
+        mTitle = title;
+        mSection = StringPool.intern(section);
+        mPublishedAt = publishedAt;
+        mContributor = StringPool.intern(contributor);
+        mWebUrl = webUrl;
+        mThumbnail = thumbnail;
+        mDisplayDate = IsoDates.formatDay(publishedAt);
+        mStableId = hash(webUrl);
+
+    }
+
+    /**
+     * Returns the title of the article in question
+     */
+    public String getmTitle() {
+        return mTitle;
+    }
+
+    /**
+     * Returns the section of the article in question
+     */
+    public String getmSection() {
+        return mSection;
+    }
+
+    /**
+     * Returns the Publication time of the article in question, in milliseconds since the epoch
+     */
+    public long getPublishedAt() {
+        return mPublishedAt;
+    }
+
+    /**
+     * Returns the Publication Date of the article in question without the time of day,
+     * e.g. "2018-07-23"
+     */
+    public String getDisplayDate() {
+        return mDisplayDate;
+    }
+
+    /**
+     * Returns the Contributor of the article in question
+     */
+    public String getmContributor() {
+        return mContributor;
+    }
+
+    /**
+     * Returns the Web Address of the article in question
+     */
+    public String getmWebUrl() {
+        return mWebUrl;
+    }
+
+    /**
+     * Returns the url of the main image of the article in question, or "" if it has none
+     */
+    public String getThumbnail() {
+        return mThumbnail;
+    }
+
+    /**
+     * Returns a 64-bit id derived from the web URL, stable across fetches of the same article,
+     * for use as a RecyclerView stable id.
+     */
+    public long getStableId() {
+        return mStableId;
+    }
+
+    // FNV-1a; 64 bits keeps collisions out of reach for any list we hold.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Two articles are equal when every displayed field matches, so a refreshed list can be
+     * compared against a cached one to see whether anything changed.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Article)) {
+            return false;
+        }
+        Article other = (Article) o;
+        return mPublishedAt == other.mPublishedAt
+                && mWebUrl.equals(other.mWebUrl)
+                && mTitle.equals(other.mTitle)
+                && mSection.equals(other.mSection)
+                && mContributor.equals(other.mContributor)
+                && mThumbnail.equals(other.mThumbnail);
+    }
+
+    @Override
+    public int hashCode() {
+        return mWebUrl.hashCode();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.android.news_reader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Disk-backed store of the last {@link Article} list fetched for each request URL, so the
+ * list can be shown straight away on the next launch, with or without a network connection.
+ * The HTTP validators of each response are kept alongside, so the revalidating request can
+ * be conditional.
+ * <p>
+ * Each entry is a small JSON file holding the validators, next to an {@link ArticleSnapshot}
+ * of the articles, which is mapped rather than parsed when the entry is read.
+ */
+public final class ArticleCache {
+
+    private static final String LOG_TAG = ArticleCache.class.getSimpleName();
+    private static final String CACHE_DIR = "articles";
+
+    // Bumped whenever the stored article fields change; older entries are ignored.
+    private static final int CACHE_VERSION = 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Create a private constructor because no one should ever create a {@link ArticleCache} object.
+     */
+    private ArticleCache() {
+    }
+
+    /**
+     * Returns the response last stored for the given request URL, or null if there is none.
+     *
+     * @param cacheDir   the app's cache directory
+     * @param requestUrl the URL the articles were fetched from
+     */
+    public static CachedResponse read(File cacheDir, String requestUrl) {
+        File file = fileFor(cacheDir, requestUrl);
+        if (!file.exists()) {
+            return null;
+        }
+
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+            String url = null;
+            int version = 1;
+            String eTag = null;
+            String lastModified = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "version":
+                        version = reader.nextInt();
+                        break;
+                    case "url":
+                        url = reader.nextString();
+                        break;
+                    case "eTag":
+                        eTag = reader.nextString();
+                        break;
+                    case "lastModified":
+                        lastModified = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+
+            // Guard against two URLs hashing to the same file name.
+            if (version != CACHE_VERSION || !requestUrl.equals(url)) {
+                return null;
+            }
+            // Rows are decoded as they are shown, not here.
+            List<Article> articles = ArticleSnapshot.open(snapshotFor(file));
+            return new CachedResponse(url, eTag, lastModified, articles);
+        } catch (IOException | IllegalStateException e) {
+            Logging.e(LOG_TAG, "Problem reading the cached articles.", e);
+            return null;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Returns the time the entry for the given request URL was last stored or confirmed
+     * current, in milliseconds since the epoch, or 0 if there is none.
+     *
+     * @param cacheDir   the app's cache directory
+     * @param requestUrl the URL the articles were fetched from
+     */
+    public static long lastValidated(File cacheDir, String requestUrl) {
+        return fileFor(cacheDir, requestUrl).lastModified();
+    }
+
+    /**
+     * Records that the entry for the given request URL was just confirmed current.
+     *
+     * @param cacheDir   the app's cache directory
+     * @param requestUrl the URL the articles were fetched from
+     */
+    public static void markValidated(File cacheDir, String requestUrl) {
+        File file = fileFor(cacheDir, requestUrl);
+        if (file.exists() && !file.setLastModified(System.currentTimeMillis())) {
+            Logging.e(LOG_TAG, "Could not update the article cache entry time.");
+        }
+    }
+
+    /**
+     * Stores a response, replacing any previous entry for its request URL.
+     *
+     * @param cacheDir the app's cache directory
+     * @param response the parsed response and its validators
+     */
+    public static void write(File cacheDir, CachedResponse response) {
+        File file = fileFor(cacheDir, response.getUrl());
+        File dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            Logging.e(LOG_TAG, "Could not create the article cache directory.");
+            return;
+        }
+
+        // Write to temporary files first and rename them into place, so a reader never sees a
+        // half written entry. The articles go first: the JSON file is what makes the entry
+        // visible.
+        File temp = new File(dir, file.getName() + ".tmp");
+        File snapshotTemp = new File(dir, snapshotFor(file).getName() + ".tmp");
+        JsonWriter writer = null;
+        try {
+            ArticleSnapshot.write(snapshotTemp, response.getArticles());
+            // Drop the old entry first, so its validators are never paired with new articles.
+            if (file.exists() && !file.delete()) {
+                Logging.w(LOG_TAG, "Could not delete " + file);
+            }
+            if (!snapshotTemp.renameTo(snapshotFor(file))) {
+                Logging.e(LOG_TAG, "Could not move the cached articles into place.");
+                return;
+            }
+
+            writer = new JsonWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF_8));
+            writer.beginObject();
+            writer.name("version").value(CACHE_VERSION);
+            writer.name("url").value(response.getUrl());
+            writer.name("eTag").value(response.getETag());
+            writer.name("lastModified").value(response.getLastModified());
+            writer.endObject();
+            writer.close();
+            writer = null;
+
+            if (!temp.renameTo(file)) {
+                Logging.e(LOG_TAG, "Could not move the cached articles into place.");
+            }
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem writing the cached articles.", e);
+        } finally {
+            closeQuietly(writer);
+            if (temp.exists() && !temp.delete()) {
+                Logging.w(LOG_TAG, "Could not delete " + temp);
+            }
+            if (snapshotTemp.exists() && !snapshotTemp.delete()) {
+                Logging.w(LOG_TAG, "Could not delete " + snapshotTemp);
+            }
+        }
+    }
+
+    // Each request URL is stored under the hex SHA-1 of the URL.
+    private static File fileFor(File cacheDir, String requestUrl) {
+        return new File(new File(cacheDir, CACHE_DIR), hashName(requestUrl) + ".json");
+    }
+
+    /**
+     * Returns a file name for the URL: the hex SHA-1 of it, or its hash code if the platform
+     * has no SHA-1.
+     */
+    static String hashName(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    // The articles of an entry are stored next to its JSON file.
+    private static File snapshotFor(File file) {
+        String name = file.getName();
+        return new File(file.getParentFile(),
+                name.substring(0, name.length() - ".json".length()) + ".articles");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Logging.w(LOG_TAG, "Problem closing the article cache file.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.android.news_reader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads back, one {@link Article} at a time, a file written by {@link ArticleFileWriter}.
+ */
+public class ArticleFileReader implements Closeable {
+
+    private final PushbackInputStream mPushback;
+    private final CountingInputStream mCounter;
+    private final DataInputStream mIn;
+
+    // Shared strings in the order they were first written.
+    private final List<String> mStrings = new ArrayList<>();
+
+    /**
+     * Constructs a new {@link ArticleFileReader} and checks the header of the file.
+     *
+     * @param inputStream the file contents
+     * @throws IOException if the stream is not an article file of a version this reader knows
+     */
+    public ArticleFileReader(InputStream inputStream) throws IOException {
+        mPushback = new PushbackInputStream(new BufferedInputStream(inputStream));
+        mCounter = new CountingInputStream(mPushback);
+        mIn = new DataInputStream(mCounter);
+        if (mIn.readInt() != ArticleFileWriter.MAGIC
+                || mIn.readUnsignedByte() != ArticleFileWriter.VERSION) {
+            throw new IOException("Not an article file");
+        }
+    }
+
+    /**
+     * Returns true if there is another article left in the file.
+     */
+    public boolean hasNext() throws IOException {
+        int next = mPushback.read();
+        if (next < 0) {
+            return false;
+        }
+        mPushback.unread(next);
+        return true;
+    }
+
+    /**
+     * Reads the next article.
+     */
+    public Article next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String title = mIn.readUTF();
+        String section = readShared();
+        long publishedAt = mIn.readLong();
+        String contributor = readShared();
+        String webUrl = mIn.readUTF();
+        String thumbnail = mIn.readUTF();
+        return new Article(title, section, publishedAt, contributor, webUrl, thumbnail);
+    }
+
+    /**
+     * Returns the number of bytes of the file read so far.
+     */
+    public long getPosition() {
+        return mCounter.mCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mIn.close();
+    }
+
+    private String readShared() throws IOException {
+        int ref = readVarInt();
+        if (ref == 0) {
+            String value = mIn.readUTF();
+            mStrings.add(value);
+            return value;
+        }
+        if (ref > mStrings.size()) {
+            throw new IOException("Unknown string " + ref);
+        }
+        return mStrings.get(ref - 1);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = mIn.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    // Counts the bytes handed out, so a reader knows where each record ends.
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
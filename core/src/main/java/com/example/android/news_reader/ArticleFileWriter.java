@@ -0,0 +1,127 @@
+package com.example.android.news_reader;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends {@link Article}s to a compact binary file, one record at a time, for bulk exports
+ * too large to hold in memory. Read the file back with {@link ArticleFileReader}.
+ * <p>
+ * After a header, each record holds the title, section, publication time, contributor, web
+ * URL and thumbnail URL. Sections and contributors repeat across thousands of articles, so
+ * each distinct one is written once and referred to by number afterwards.
+ */
+public class ArticleFileWriter implements Closeable {
+
+    // "NRAF", then the format version.
+    static final int MAGIC = 0x4e524146;
+    static final int VERSION = 2;
+    static final int HEADER_LENGTH = 5;
+
+    private final Map<String, Integer> mStrings = new HashMap<>();
+    private final DataOutputStream mOut;
+
+    // Length of the file when this writer opened it.
+    private final long mStartLength;
+
+    /**
+     * Opens the file for appending, creating it if it does not exist.
+     *
+     * @param file   is the file to write to
+     * @param length is the length to keep of an existing file, for example the length it had
+     *               at the last checkpoint; anything written after it is discarded. 0 starts
+     *               the file over.
+     */
+    public ArticleFileWriter(File file, long length) throws IOException {
+        if (length > HEADER_LENGTH && file.length() >= length) {
+            // Records refer back to strings written earlier, so learn them again.
+            ArticleFileReader reader = new ArticleFileReader(new FileInputStream(file));
+            try {
+                while (reader.getPosition() < length && reader.hasNext()) {
+                    remember(reader.next());
+                }
+            } finally {
+                reader.close();
+            }
+            RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+            try {
+                truncate.setLength(length);
+            } finally {
+                truncate.close();
+            }
+            mStartLength = length;
+            mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        } else {
+            mStartLength = 0;
+            mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            mOut.writeInt(MAGIC);
+            mOut.writeByte(VERSION);
+        }
+    }
+
+    /**
+     * Appends one article.
+     */
+    public void write(Article article) throws IOException {
+        mOut.writeUTF(article.getmTitle());
+        writeShared(article.getmSection());
+        mOut.writeLong(article.getPublishedAt());
+        writeShared(article.getmContributor());
+        mOut.writeUTF(article.getmWebUrl());
+        mOut.writeUTF(article.getThumbnail());
+    }
+
+    /**
+     * Writes everything appended so far through to the file.
+     *
+     * @return the length of the file, a point {@link #ArticleFileWriter(File, long)} can
+     * resume from
+     */
+    public long flush() throws IOException {
+        mOut.flush();
+        return mStartLength + mOut.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mOut.close();
+    }
+
+    // Writes 0 and the string the first time it is seen, and its number plus one after that.
+    private void writeShared(String value) throws IOException {
+        Integer id = mStrings.get(value);
+        if (id != null) {
+            writeVarInt(id + 1);
+        } else {
+            mStrings.put(value, mStrings.size());
+            writeVarInt(0);
+            mOut.writeUTF(value);
+        }
+    }
+
+    // Numbers the shared strings of an existing record in the order they were written.
+    private void remember(Article article) {
+        if (!mStrings.containsKey(article.getmSection())) {
+            mStrings.put(article.getmSection(), mStrings.size());
+        }
+        if (!mStrings.containsKey(article.getmContributor())) {
+            mStrings.put(article.getmContributor(), mStrings.size());
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            mOut.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        mOut.writeByte(value);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.android.news_reader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory inverted index over the title, section and contributor of every {@link Article}
+ * fetched so far, so a search can be answered from articles already downloaded while the
+ * network request for it is still on its way.
+ * <p>
+ * Words are matched case-insensitively and whole; a query with several words matches the
+ * articles containing all of them.
+ */
+public class ArticleIndex {
+
+    private static final int INITIAL_POSTINGS = 4;
+
+    // Every article indexed, by document id. A slot is cleared when its article is replaced
+    // by one with different text.
+    private final List<Article> mArticles = new ArrayList<>();
+    private final Map<String, Integer> mIdsByUrl = new HashMap<>();
+
+    // Document ids containing each word, in increasing order.
+    private final Map<String, Postings> mPostings = new HashMap<>();
+
+    private int mSize;
+
+    /**
+     * Returns the number of distinct articles indexed
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Adds a batch of articles, replacing any already indexed under the same web URL.
+     */
+    public synchronized void addAll(List<Article> articles) {
+        for (Article article : articles) {
+            add(article);
+        }
+    }
+
+    /**
+     * Adds an article, replacing any already indexed under the same web URL.
+     */
+    public synchronized void add(Article article) {
+        Integer previousId = mIdsByUrl.get(article.getmWebUrl());
+        if (previousId != null) {
+            Article previous = mArticles.get(previousId);
+            if (sameText(previous, article)) {
+                // Same words, so the postings still hold; just keep the newer copy.
+                mArticles.set(previousId, article);
+                return;
+            }
+            mArticles.set(previousId, null);
+            mSize--;
+        }
+
+        int id = mArticles.size();
+        mArticles.add(article);
+        mIdsByUrl.put(article.getmWebUrl(), id);
+        mSize++;
+
+        indexText(id, article.getmTitle());
+        indexText(id, article.getmSection());
+        indexText(id, article.getmContributor());
+    }
+
+    /**
+     * Returns the articles containing every word of the query, newest first.
+     *
+     * @param query is the words to look for
+     * @param limit is the most articles to return
+     */
+    public synchronized List<Article> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Postings[] lists = new Postings[words.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = mPostings.get(words.get(i));
+            if (lists[i] == null) {
+                return Collections.emptyList();
+            }
+        }
+        // Intersect starting from the rarest word, so the work is bounded by its postings.
+        Arrays.sort(lists, new Comparator<Postings>() {
+            @Override
+            public int compare(Postings a, Postings b) {
+                return a.mSize - b.mSize;
+            }
+        });
+
+        // Keep only the newest matches while walking the candidates.
+        PriorityQueue<Article> newest = new PriorityQueue<>(limit, new Comparator<Article>() {
+            @Override
+            public int compare(Article a, Article b) {
+                return a.getPublishedAt() < b.getPublishedAt() ? -1
+                        : (a.getPublishedAt() == b.getPublishedAt() ? 0 : 1);
+            }
+        });
+        int[] cursors = new int[lists.length];
+        Postings rarest = lists[0];
+        candidates:
+        for (int i = 0; i < rarest.mSize; i++) {
+            int id = rarest.mIds[i];
+            for (int j = 1; j < lists.length; j++) {
+                cursors[j] = lists[j].seek(id, cursors[j]);
+                if (cursors[j] == lists[j].mSize) {
+                    break candidates;
+                }
+                if (lists[j].mIds[cursors[j]] != id) {
+                    continue candidates;
+                }
+            }
+            Article article = mArticles.get(id);
+            if (article == null) {
+                continue;
+            }
+            if (newest.size() < limit) {
+                newest.add(article);
+            } else if (newest.peek().getPublishedAt() < article.getPublishedAt()) {
+                newest.poll();
+                newest.add(article);
+            }
+        }
+
+        Article[] result = new Article[newest.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = newest.poll();
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Forgets every article indexed.
+     */
+    public synchronized void clear() {
+        mArticles.clear();
+        mIdsByUrl.clear();
+        mPostings.clear();
+        mSize = 0;
+    }
+
+    /**
+     * Splits text into lower case words, breaking on anything that is not a letter or digit.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                String token = word.toString();
+                if (!words.contains(token)) {
+                    words.add(token);
+                }
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private void indexText(int id, String text) {
+        for (String word : tokenize(text)) {
+            Postings postings = mPostings.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                mPostings.put(word, postings);
+            }
+            postings.add(id);
+        }
+    }
+
+    private static boolean sameText(Article a, Article b) {
+        return a != null
+                && a.getmTitle().equals(b.getmTitle())
+                && a.getmSection().equals(b.getmSection())
+                && a.getmContributor().equals(b.getmContributor());
+    }
+
+    // Growable sorted array of document ids.
+    private static class Postings {
+        int[] mIds = new int[INITIAL_POSTINGS];
+        int mSize;
+
+        void add(int id) {
+            // Ids only grow, and a word seen twice in one article is stored once.
+            if (mSize > 0 && mIds[mSize - 1] == id) {
+                return;
+            }
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mSize * 2);
+            }
+            mIds[mSize++] = id;
+        }
+
+        // Returns the first position at or after {@code from} holding an id >= target.
+        int seek(int target, int from) {
+            // Gallop forward, then binary search the last step.
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < mSize && mIds[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > mSize) {
+                high = mSize;
+            }
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (mIds[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
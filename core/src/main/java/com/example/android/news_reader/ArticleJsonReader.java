@@ -0,0 +1,225 @@
+package com.example.android.news_reader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based reader that walks a Guardian search response and hands back one {@link Article}
+ * at a time, straight off the response stream.
+ * <p>
+ * Only the "response.results" array is decoded; every other key (and every result field we
+ * never display) is skipped without being turned into a String or a tree node.
+ */
+public class ArticleJsonReader implements Closeable {
+
+    private static final int CONTRIBUTOR_INDEX = 0;
+
+    private final JsonReader mReader;
+
+    // True once the reader is positioned inside the "results" array.
+    private boolean mInResults;
+
+    // True once the "results" array (or the whole document) has been consumed.
+    private boolean mFinished;
+
+    // The "pages" count of the response, if it came before the results.
+    private int mPages = -1;
+
+    /**
+     * Constructs a new {@link ArticleJsonReader} over a UTF-8 encoded response stream.
+     *
+     * @param inputStream the raw response body
+     */
+    public ArticleJsonReader(InputStream inputStream) {
+        this(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+    }
+
+    /**
+     * Constructs a new {@link ArticleJsonReader} over an already decoded character stream.
+     *
+     * @param reader the response body
+     */
+    public ArticleJsonReader(Reader reader) {
+        mReader = new JsonReader(reader);
+    }
+
+    /**
+     * Returns true if there is another article left in the "results" array.
+     */
+    public boolean hasNext() throws IOException {
+        if (mFinished) {
+            return false;
+        }
+        if (!mInResults) {
+            if (!seekToResults()) {
+                mFinished = true;
+                return false;
+            }
+            mInResults = true;
+        }
+        if (mReader.hasNext()) {
+            return true;
+        }
+        mReader.endArray();
+        mFinished = true;
+        return false;
+    }
+
+    /**
+     * Decodes the next result into an {@link Article}.
+     */
+    public Article next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        String title = "";
+        String section = "";
+        long publishedAt = 0;
+        String webUrl = "";
+        String contributor = "";
+        String byline = "";
+        String thumbnail = "";
+
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            switch (mReader.nextName()) {
+                case "webTitle":
+                    title = nextString();
+                    break;
+                case "sectionName":
+                    section = nextString();
+                    break;
+                case "webPublicationDate":
+                    // Parsed once here; nothing downstream touches the ISO string again.
+                    publishedAt = IsoDates.parse(nextString());
+                    break;
+                case "webUrl":
+                    webUrl = nextString();
+                    break;
+                case "tags":
+                    contributor = readContributor();
+                    break;
+                case "fields":
+                    if (mReader.peek() != JsonToken.BEGIN_OBJECT) {
+                        mReader.skipValue();
+                        break;
+                    }
+                    mReader.beginObject();
+                    while (mReader.hasNext()) {
+                        switch (mReader.nextName()) {
+                            case "byline":
+                                byline = nextString();
+                                break;
+                            case "thumbnail":
+                                thumbnail = nextString();
+                                break;
+                            default:
+                                mReader.skipValue();
+                                break;
+                        }
+                    }
+                    mReader.endObject();
+                    break;
+                default:
+                    mReader.skipValue();
+                    break;
+            }
+        }
+        mReader.endObject();
+
+        // Asked for as show-fields=byline; a contributor tag, if sent, wins.
+        if (contributor.isEmpty()) {
+            contributor = byline;
+        }
+        return new Article(title, section, publishedAt, contributor, webUrl, thumbnail);
+    }
+
+    /**
+     * Returns the number of pages the search has in all, as the response says before its
+     * results, or -1 if it did not say. Known once {@link #hasNext()} has been called.
+     */
+    public int getPages() {
+        return mPages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+
+    // Moves the reader into the "response.results" array. Returns false if the document
+    // does not contain one.
+    private boolean seekToResults() throws IOException {
+        if (mReader.peek() != JsonToken.BEGIN_OBJECT) {
+            return false;
+        }
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            if ("response".equals(mReader.nextName()) && mReader.peek() == JsonToken.BEGIN_OBJECT) {
+                mReader.beginObject();
+                while (mReader.hasNext()) {
+                    String name = mReader.nextName();
+                    if ("results".equals(name) && mReader.peek() == JsonToken.BEGIN_ARRAY) {
+                        mReader.beginArray();
+                        return true;
+                    }
+                    if ("pages".equals(name) && mReader.peek() == JsonToken.NUMBER) {
+                        mPages = mReader.nextInt();
+                        continue;
+                    }
+                    mReader.skipValue();
+                }
+                return false;
+            }
+            mReader.skipValue();
+        }
+        return false;
+    }
+
+    // Reads the "webTitle" of the first contributor tag and skips the rest of the array.
+    private String readContributor() throws IOException {
+        if (mReader.peek() != JsonToken.BEGIN_ARRAY) {
+            mReader.skipValue();
+            return "";
+        }
+        String contributor = "";
+        int index = 0;
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            if (index++ == CONTRIBUTOR_INDEX && mReader.peek() == JsonToken.BEGIN_OBJECT) {
+                mReader.beginObject();
+                while (mReader.hasNext()) {
+                    if ("webTitle".equals(mReader.nextName())) {
+                        contributor = nextString();
+                    } else {
+                        mReader.skipValue();
+                    }
+                }
+                mReader.endObject();
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endArray();
+        return contributor;
+    }
+
+    // Reads a string value, treating JSON null (or any non-string) as empty.
+    private String nextString() throws IOException {
+        JsonToken token = mReader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return mReader.nextString();
+        }
+        mReader.skipValue();
+        return "";
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.android.news_reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide, least-recently-used cache of parsed feeds, so a loader created again for a
+ * request seen a moment ago (after a settings change or a rotation) gets its articles without
+ * touching the disk or the network.
+ * <p>
+ * The cache is bounded by the total number of articles held, entries expire after a fixed
+ * time, and {@link #trimToSize(int)} lets the app give memory back when the system asks.
+ */
+public class ArticleMemoryCache {
+
+    private final int mMaxArticles;
+    private final long mTimeToLive;
+
+    // Access ordered, so iteration starts from the least recently used entry.
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int mSize;
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * Constructs a new {@link ArticleMemoryCache}.
+     *
+     * @param maxArticles is the most articles held across every entry
+     * @param timeToLive  is how long an entry is served after it was fetched, in milliseconds
+     */
+    public ArticleMemoryCache(int maxArticles, long timeToLive) {
+        mMaxArticles = maxArticles;
+        mTimeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the articles stored for the request, or null if there are none or they expired.
+     *
+     * @param requestUrl the request URL, or {@link FeedRequest#getCacheKey()} of a merged feed
+     */
+    public List<Article> get(String requestUrl) {
+        return get(requestUrl, System.currentTimeMillis());
+    }
+
+    synchronized List<Article> get(String requestUrl, long now) {
+        String key = QueryUtils.normalizeRequestUrl(requestUrl);
+        Entry entry = mEntries.get(key);
+        if (entry != null && now - entry.mFetchedAt > mTimeToLive) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return entry.mArticles;
+    }
+
+    /**
+     * Stores the articles fetched for a request, evicting the least recently used entries
+     * if the cache grows past its bound.
+     *
+     * @param requestUrl the request URL, or {@link FeedRequest#getCacheKey()} of a merged feed
+     * @param articles   the parsed articles
+     * @param fetchedAt  when the articles were fetched or last confirmed current, in
+     *                   milliseconds since the epoch
+     */
+    public synchronized void put(String requestUrl, List<Article> articles, long fetchedAt) {
+        if (articles.size() > mMaxArticles) {
+            return;
+        }
+        String key = QueryUtils.normalizeRequestUrl(requestUrl);
+        remove(key);
+        // A snapshot is read-only already, and copying it would decode every row up front.
+        List<Article> held = articles instanceof ArticleSnapshot
+                ? articles : Collections.unmodifiableList(new ArrayList<>(articles));
+        mEntries.put(key, new Entry(held, fetchedAt));
+        mSize += articles.size();
+        trimToSize(mMaxArticles);
+    }
+
+    /**
+     * Evicts the least recently used entries until at most {@code maxArticles} are held.
+     */
+    public synchronized void trimToSize(int maxArticles) {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mSize > maxArticles && iterator.hasNext()) {
+            mSize -= iterator.next().getValue().mArticles.size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Evicts every entry. The hit and miss counts are kept.
+     */
+    public synchronized void evictAll() {
+        trimToSize(0);
+    }
+
+    /**
+     * Returns the most articles the cache holds
+     */
+    public int getMaxSize() {
+        return mMaxArticles;
+    }
+
+    /**
+     * Returns the number of articles held across every entry
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the number of lookups that were answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of lookups that found nothing, or only an expired entry
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    private void remove(String key) {
+        Entry previous = mEntries.remove(key);
+        if (previous != null) {
+            mSize -= previous.mArticles.size();
+        }
+    }
+
+    private static class Entry {
+        final List<Article> mArticles;
+        final long mFetchedAt;
+
+        Entry(List<Article> articles, long fetchedAt) {
+            mArticles = articles;
+            mFetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.android.news_reader;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the contiguous run of Guardian result pages currently held in memory, so the list can
+ * grow page by page as the user scrolls without ever re-requesting what it already holds.
+ * <p>
+ * Articles are de-duplicated by web URL across pages (new stories arriving between two page
+ * requests shift results onto the next page), and at most {@code maxPages} pages are held:
+ * scrolling down evicts the oldest page, scrolling back up loads it again.
+ */
+public class ArticlePager {
+
+    /**
+     * Value of {@link #getLoadingPage()} when no page is being loaded.
+     */
+    public static final int NO_PAGE = 0;
+
+    private final int mPageSize;
+    private final int mMaxPages;
+
+    // Raw results of each held page, first page first.
+    private final List<List<Article>> mPages = new ArrayList<>();
+
+    // De-duplicated rows of all held pages.
+    private final List<Article> mArticles = new ArrayList<>();
+    private final Set<String> mSeenUrls = new HashSet<>();
+
+    private int mFirstPage = 1;
+    private int mLoadingPage = NO_PAGE;
+    private boolean mEndReached;
+
+    /**
+     * Constructs a new {@link ArticlePager}.
+     *
+     * @param pageSize is the number of results requested per page
+     * @param maxPages is the number of pages held in memory at once
+     */
+    public ArticlePager(int pageSize, int maxPages) {
+        mPageSize = pageSize;
+        mMaxPages = maxPages;
+    }
+
+    /**
+     * Returns the number of results requested per page
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Returns the number of the first page held, or 1 if nothing is held
+     */
+    public int getFirstPage() {
+        return mFirstPage;
+    }
+
+    /**
+     * Returns the number of the last page held, or 0 if nothing is held
+     */
+    public int getLastPage() {
+        return mFirstPage + mPages.size() - 1;
+    }
+
+    /**
+     * Returns true if there may be results after the last page held
+     */
+    public boolean hasNextPage() {
+        return !mPages.isEmpty() && !mEndReached;
+    }
+
+    /**
+     * Returns true if earlier pages were evicted and can be loaded again
+     */
+    public boolean hasPreviousPage() {
+        return mFirstPage > 1;
+    }
+
+    /**
+     * Returns the page currently being loaded, or {@link #NO_PAGE}
+     */
+    public int getLoadingPage() {
+        return mLoadingPage;
+    }
+
+    /**
+     * Records the page currently being loaded, or {@link #NO_PAGE}
+     */
+    public void setLoadingPage(int page) {
+        mLoadingPage = page;
+    }
+
+    /**
+     * Forgets every held page, for a feed that changed altogether. The next page loaded must
+     * be the first.
+     */
+    public void clear() {
+        mPages.clear();
+        rebuild();
+        mFirstPage = 1;
+        mLoadingPage = NO_PAGE;
+        mEndReached = false;
+    }
+
+    /**
+     * Returns the de-duplicated rows of every held page, in order
+     */
+    public List<Article> getArticles() {
+        return mArticles;
+    }
+
+    /**
+     * Adds or replaces a page of results.
+     *
+     * @param page     is the page number the results were requested for
+     * @param articles is the page of results, or null if the request failed
+     * @return true if {@link #getArticles()} changed, false if the page was dropped because it
+     * does not touch the pages held
+     */
+    public boolean onPageLoaded(int page, List<Article> articles) {
+        if (page == mLoadingPage) {
+            mLoadingPage = NO_PAGE;
+        }
+
+        if (articles == null) {
+            // Stop paging forward until the list is refreshed; don't hammer a failing request.
+            if (page > getLastPage()) {
+                mEndReached = true;
+            }
+            return false;
+        }
+
+        if (mPages.isEmpty()) {
+            // The list always starts from the first page.
+            if (page != 1) {
+                return false;
+            }
+            mFirstPage = 1;
+        }
+
+        if (mPages.isEmpty() || page == getLastPage() + 1) {
+            mPages.add(articles);
+            mEndReached = articles.size() < mPageSize;
+            if (mPages.size() > mMaxPages) {
+                mPages.remove(0);
+                mFirstPage++;
+                rebuild();
+                return true;
+            }
+            appendUnique(articles);
+            return true;
+        }
+
+        if (page == mFirstPage - 1) {
+            mPages.add(0, articles);
+            mFirstPage--;
+            if (mPages.size() > mMaxPages) {
+                mPages.remove(mPages.size() - 1);
+                mEndReached = false;
+            }
+            rebuild();
+            return true;
+        }
+
+        if (page >= mFirstPage && page <= getLastPage()) {
+            // A page we already hold came back again (for example revalidated from the network).
+            int index = page - mFirstPage;
+            mPages.set(index, articles);
+            if (index == mPages.size() - 1) {
+                mEndReached = articles.size() < mPageSize;
+            }
+            rebuild();
+            return true;
+        }
+
+        return false;
+    }
+
+    // Adds the rows of a page to the end of the list, skipping any already held.
+    private void appendUnique(List<Article> articles) {
+        for (Article article : articles) {
+            if (mSeenUrls.add(article.getmWebUrl())) {
+                mArticles.add(article);
+            }
+        }
+    }
+
+    // Recomputes the de-duplicated rows from the raw pages.
+    private void rebuild() {
+        mArticles.clear();
+        mSeenUrls.clear();
+        for (List<Article> page : mPages) {
+            appendUnique(page);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.android.news_reader;
+
+import java.util.EnumSet;
+
+/**
+ * The {@link Article} fields a screen needs, and the request parameters that ask The Guardian
+ * for those and nothing more.
+ * <p>
+ * Every search result carries its title, section, publication date and web URL whatever is
+ * asked for. Anything else costs bytes on every row: the contributor is asked for as the short
+ * "byline" field rather than the contributor tags, whose objects carry a biography and image
+ * URLs. The thumbnail is only a URL; the image itself is fetched as the row is shown. The
+ * trail text and body are never asked for: an opened article is shown on the web.
+ */
+public final class ArticleProjection {
+
+    /**
+     * A field of an article that can be asked for.
+     */
+    public enum Field {
+        TITLE(null),
+        SECTION(null),
+        PUBLISHED_AT(null),
+        WEB_URL(null),
+        CONTRIBUTOR("byline"),
+        THUMBNAIL("thumbnail");
+
+        // Name in the show-fields parameter, or null if every result carries the field.
+        private final String mApiName;
+
+        Field(String apiName) {
+            mApiName = apiName;
+        }
+    }
+
+    /**
+     * What a row of the article list shows.
+     */
+    public static final ArticleProjection LIST = of(Field.TITLE, Field.SECTION,
+            Field.PUBLISHED_AT, Field.WEB_URL, Field.CONTRIBUTOR, Field.THUMBNAIL);
+
+    private final EnumSet<Field> mFields;
+
+    private ArticleProjection(EnumSet<Field> fields) {
+        mFields = fields;
+    }
+
+    /**
+     * Returns a projection of the given fields, for a screen to declare what it shows. Pass it
+     * to {@link FeedRequest#create} or {@link FeedRequest#searchUrl}.
+     */
+    public static ArticleProjection of(Field first, Field... rest) {
+        return new ArticleProjection(EnumSet.of(first, rest));
+    }
+
+    /**
+     * Returns the value of the show-fields parameter, or null if none of the fields needs it
+     */
+    public String getShowFields() {
+        StringBuilder showFields = new StringBuilder();
+        for (Field field : mFields) {
+            if (field.mApiName != null) {
+                if (showFields.length() > 0) {
+                    showFields.append(',');
+                }
+                showFields.append(field.mApiName);
+            }
+        }
+        return showFields.length() == 0 ? null : showFields.toString();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.android.news_reader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A list of {@link Article}s stored in a compact binary file and read through a memory
+ * mapping. Opening a snapshot reads only its header, checking that the indexes lie within the
+ * file. Each row is checked and decoded the first time it is asked for, so showing the first
+ * screen of a 5000 article snapshot touches a dozen rows rather than all of them. A row found
+ * damaged then makes {@link #get(int)} throw {@link IllegalStateException}, and the file is
+ * deleted so it is not served again.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * header        magic "NRAS", version, row count, string count,
+ *               offset of the string index, offset of the row index (six ints)
+ * strings       per distinct section or contributor: int length, UTF-8 bytes
+ * string index  one int offset per string
+ * rows          per article: long publishedAt, int section, int contributor (string numbers),
+ *               int length + UTF-8 title, web URL and thumbnail URL
+ * row index     one int offset per row
+ * </pre>
+ */
+public class ArticleSnapshot extends AbstractList<Article> implements RandomAccess {
+
+    private static final String LOG_TAG = ArticleSnapshot.class.getSimpleName();
+
+    private static final int MAGIC = 0x4e524153;
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 6 * 4;
+
+    // publishedAt, section and contributor, then the three strings.
+    private static final int ROW_FIXED_LENGTH = 8 + 4 + 4;
+    private static final int ROW_STRINGS = 3;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File mFile;
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+    private final int mStringIndex;
+    private final int mRowIndex;
+
+    // Filled in as rows and strings are first read. A race only decodes the same row twice.
+    private final String[] mStrings;
+    private final Article[] mRows;
+
+    private ArticleSnapshot(File file, ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_LENGTH
+                || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an article snapshot");
+        }
+        mFile = file;
+        mBuffer = buffer;
+        mCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        mStringIndex = buffer.getInt(16);
+        mRowIndex = buffer.getInt(20);
+        if (mCount < 0 || stringCount < 0
+                || mStringIndex < HEADER_LENGTH
+                || mStringIndex + 4L * stringCount > buffer.capacity()
+                || mRowIndex < HEADER_LENGTH
+                || mRowIndex + 4L * mCount > buffer.capacity()) {
+            throw new IOException("Truncated article snapshot");
+        }
+        mStrings = new String[stringCount];
+        mRows = new Article[mCount];
+    }
+
+    /**
+     * Maps a snapshot file into memory. Only the header is read here; the rows are checked as
+     * they are read.
+     *
+     * @throws IOException if the file is missing or not a snapshot
+     */
+    public static ArticleSnapshot open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid after the file is closed.
+            FileChannel channel = in.getChannel();
+            return new ArticleSnapshot(file,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the articles to a snapshot file, replacing the file if it exists.
+     */
+    public static void write(File file, List<Article> articles) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Article article : articles) {
+            number(article.getmSection(), ids, strings);
+            number(article.getmContributor(), ids, strings);
+        }
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        int stringIndex;
+        int rowIndex;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(articles.size());
+            out.writeInt(strings.size());
+            // Patched below, once the offsets are known.
+            out.writeInt(0);
+            out.writeInt(0);
+
+            int[] offsets = new int[strings.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = out.size();
+                writeString(out, strings.get(i));
+            }
+            stringIndex = out.size();
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+
+            offsets = new int[articles.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                Article article = articles.get(i);
+                offsets[i] = out.size();
+                out.writeLong(article.getPublishedAt());
+                out.writeInt(ids.get(article.getmSection()));
+                out.writeInt(ids.get(article.getmContributor()));
+                writeString(out, article.getmTitle());
+                writeString(out, article.getmWebUrl());
+                writeString(out, article.getThumbnail());
+            }
+            rowIndex = out.size();
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+        } finally {
+            out.close();
+        }
+
+        RandomAccessFile header = new RandomAccessFile(file, "rw");
+        try {
+            header.seek(16);
+            header.writeInt(stringIndex);
+            header.writeInt(rowIndex);
+        } finally {
+            header.close();
+        }
+    }
+
+    @Override
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Returns the article at the given row, checking and decoding it on first use.
+     *
+     * @throws IllegalStateException if the row is damaged
+     */
+    @Override
+    public Article get(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + mCount);
+        }
+        Article article = mRows[index];
+        if (article == null) {
+            int offset = mBuffer.getInt(mRowIndex + 4 * index);
+            if (!isRowValid(offset)) {
+                throw damaged("row " + index);
+            }
+            long publishedAt = mBuffer.getLong(offset);
+            String section = sharedString(mBuffer.getInt(offset + 8));
+            String contributor = sharedString(mBuffer.getInt(offset + 12));
+            int titleOffset = offset + 16;
+            String title = readString(titleOffset);
+            int webUrlOffset = titleOffset + 4 + mBuffer.getInt(titleOffset);
+            String webUrl = readString(webUrlOffset);
+            String thumbnail = readString(webUrlOffset + 4 + mBuffer.getInt(webUrlOffset));
+            article = new Article(title, section, publishedAt, contributor, webUrl, thumbnail);
+            mRows[index] = article;
+        }
+        return article;
+    }
+
+    /**
+     * Returns the number of rows decoded so far.
+     */
+    int decodedCount() {
+        int decoded = 0;
+        for (Article article : mRows) {
+            if (article != null) {
+                decoded++;
+            }
+        }
+        return decoded;
+    }
+
+    // True if the row at the offset has string numbers in range and ends before the row index.
+    private boolean isRowValid(int offset) {
+        if (offset < HEADER_LENGTH || offset > mRowIndex - ROW_FIXED_LENGTH) {
+            return false;
+        }
+        int section = mBuffer.getInt(offset + 8);
+        int contributor = mBuffer.getInt(offset + 12);
+        if (section < 0 || section >= mStrings.length
+                || contributor < 0 || contributor >= mStrings.length) {
+            return false;
+        }
+        int end = offset + ROW_FIXED_LENGTH;
+        for (int i = 0; i < ROW_STRINGS && end >= 0; i++) {
+            end = stringEnd(end, mRowIndex);
+        }
+        return end >= 0;
+    }
+
+    // Returns where the length-prefixed string at the offset ends, or -1 if it runs past the
+    // limit.
+    private int stringEnd(int offset, int limit) {
+        if (offset < HEADER_LENGTH || offset > limit - 4) {
+            return -1;
+        }
+        int length = mBuffer.getInt(offset);
+        if (length < 0 || length > limit - offset - 4) {
+            return -1;
+        }
+        return offset + 4 + length;
+    }
+
+    private String sharedString(int id) {
+        String value = mStrings[id];
+        if (value == null) {
+            int offset = mBuffer.getInt(mStringIndex + 4 * id);
+            if (stringEnd(offset, mStringIndex) < 0) {
+                throw damaged("string " + id);
+            }
+            value = readString(offset);
+            mStrings[id] = value;
+        }
+        return value;
+    }
+
+    // Deletes the damaged file, so neither this process nor the next one serves it again, and
+    // returns the exception to throw.
+    private IllegalStateException damaged(String part) {
+        if (mFile.exists() && !mFile.delete()) {
+            Logging.e(LOG_TAG, "Could not delete " + mFile);
+        }
+        return new IllegalStateException("Damaged " + part + " in article snapshot " + mFile);
+    }
+
+    private String readString(int offset) {
+        int length = mBuffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = mBuffer.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void number(String value, Map<String, Integer> ids, List<String> strings) {
+        if (!ids.containsKey(value)) {
+            ids.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.android.news_reader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless mode that mirrors every Guardian article in a date range to an
+ * {@link ArticleFileWriter} file, for analytics off the device.
+ * <p>
+ * The range is split into shards of a few days, which are fetched in parallel through
+ * {@link QueryUtils#fetchSearchPage(String, RateLimiter)} with every request, retries
+ * included, sharing one {@link RateLimiter}. Each finished shard is appended to the output
+ * and recorded in a checkpoint file together with the output length, so an interrupted run
+ * picks up where it stopped: shards already done are skipped, and anything written after the
+ * last checkpoint is cut off.
+ * <p>
+ * Run it with {@code ./gradlew :core:ingest -PingestArgs="bitcoin 2018-01-01 2018-12-31"}.
+ */
+public class BatchIngester {
+
+    private static final String LOG_TAG = BatchIngester.class.getSimpleName();
+
+    /**
+     * Largest page size The Guardian accepts.
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // The developer tier allows 12 requests a second.
+    private static final int DEFAULT_THREADS = 4;
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    private static final int DEFAULT_SHARD_DAYS = 7;
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Oldest first, so a page boundary does not move while a shard is being paged through.
+    private static final String ORDER_BY = FeedRequest.ORDER_BY_OLDEST;
+
+    private final String mBaseUrl;
+    private final String mApiKey;
+    private final int mThreads;
+    private final RateLimiter mRateLimiter;
+    private final int mPageSize;
+
+    /**
+     * Constructs a new {@link BatchIngester}.
+     *
+     * @param baseUrl     is the search endpoint, normally {@link FeedRequest#BASE_REQUEST_URL}
+     * @param apiKey      is the Guardian API key
+     * @param threads     is the number of shards fetched at the same time
+     * @param rateLimiter is shared by every request the ingester sends
+     * @param pageSize    is the number of results asked for per request
+     */
+    public BatchIngester(String baseUrl, String apiKey, int threads, RateLimiter rateLimiter,
+                         int pageSize) {
+        mBaseUrl = baseUrl;
+        mApiKey = apiKey;
+        mThreads = threads;
+        mRateLimiter = rateLimiter;
+        mPageSize = pageSize;
+    }
+
+    /**
+     * Fetches every article matching the query published between two days and appends them
+     * to the output file, resuming from the checkpoint file if it exists.
+     *
+     * @param query      is the text to search for, or null for every article
+     * @param fromDate   is the first day, "yyyy-MM-dd"
+     * @param toDate     is the last day, inclusive, "yyyy-MM-dd"
+     * @param shardDays  is the number of days fetched as one shard
+     * @param output     is the file the articles are written to
+     * @param checkpoint is the file progress is recorded in
+     * @throws IOException if the output or checkpoint can't be written, or the checkpoint
+     *                     belongs to a different crawl
+     */
+    public Result ingest(String query, String fromDate, String toDate, int shardDays,
+                         File output, File checkpoint) throws IOException {
+        long from = IsoDates.parse(fromDate);
+        long to = IsoDates.parse(toDate);
+        if (from == 0 || to < from || shardDays < 1) {
+            throw new IllegalArgumentException(
+                    "Bad range " + fromDate + " to " + toDate + " by " + shardDays + " days");
+        }
+
+        // Shards are named by their first day.
+        String header = "# " + query + ' ' + fromDate + ' ' + toDate + ' ' + shardDays;
+        Set<String> done = new HashSet<>();
+        long length = readCheckpoint(checkpoint, header, done);
+        if (output.length() < length) {
+            // The output went missing since the checkpoint; nothing in it can be trusted.
+            done.clear();
+            length = 0;
+        }
+
+        long start = System.nanoTime();
+        final ArticleFileWriter writer = new ArticleFileWriter(output, length);
+        final Writer progress = new OutputStreamWriter(
+                new FileOutputStream(checkpoint, length > 0), UTF_8);
+        ExecutorService executor = Executors.newFixedThreadPool(mThreads);
+        int shards = 0;
+        int skipped = 0;
+        int failed = 0;
+        long articles = 0;
+        try {
+            if (length == 0) {
+                progress.write(header + '\n');
+                progress.flush();
+            }
+
+            List<Future<Integer>> results = new ArrayList<>();
+            for (long day = from; day <= to; day += shardDays * DAY) {
+                shards++;
+                final String shardFrom = IsoDates.formatDay(day);
+                if (done.contains(shardFrom)) {
+                    skipped++;
+                    continue;
+                }
+                final String shardTo = IsoDates.formatDay(Math.min(day + (shardDays - 1) * DAY, to));
+                final String shardQuery = query;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        List<Article> shard = fetchShard(shardQuery, shardFrom, shardTo);
+                        // One shard at a time, so the checkpoint always ends on a whole shard.
+                        synchronized (writer) {
+                            for (Article article : shard) {
+                                writer.write(article);
+                            }
+                            long written = writer.flush();
+                            progress.write(shardFrom + ' ' + written + '\n');
+                            progress.flush();
+                        }
+                        return shard.size();
+                    }
+                }));
+            }
+
+            for (Future<Integer> result : results) {
+                try {
+                    articles += result.get();
+                } catch (ExecutionException e) {
+                    Logging.e(LOG_TAG, "Shard failed, it will be fetched on the next run.",
+                            e.getCause());
+                    failed++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            progress.close();
+            writer.close();
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        return new Result(shards, skipped, failed, articles, elapsed);
+    }
+
+    // Pages through one shard until the last page the search reports.
+    private List<Article> fetchShard(String query, String fromDate, String toDate)
+            throws IOException {
+        List<Article> articles = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            String url = FeedRequest.searchUrl(mBaseUrl, mApiKey, query, fromDate, toDate,
+                    ORDER_BY, page, mPageSize, ArticleProjection.LIST);
+            // Every attempt at the page, retries included, waits for the rate limiter.
+            SearchPage results = QueryUtils.fetchSearchPage(url, mRateLimiter);
+            if (results == null) {
+                throw new IOException("Could not fetch page " + page + " of " + fromDate);
+            }
+            articles.addAll(results.getArticles());
+            if (results.isLastPage(page, mPageSize)) {
+                return articles;
+            }
+        }
+    }
+
+    // Adds the shards already done to the set and returns the output length they end at, or
+    // 0 if there is no checkpoint yet.
+    private static long readCheckpoint(File checkpoint, String header, Set<String> done)
+            throws IOException {
+        if (!checkpoint.exists()) {
+            return 0;
+        }
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(checkpoint), UTF_8));
+        try {
+            String line = reader.readLine();
+            if (line == null) {
+                return 0;
+            }
+            if (!line.equals(header)) {
+                throw new IOException(checkpoint + " is the checkpoint of another crawl: " + line);
+            }
+            long length = ArticleFileWriter.HEADER_LENGTH;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    // Cut off half way through a line; that shard never finished.
+                    break;
+                }
+                try {
+                    length = Math.max(length, Long.parseLong(line.substring(space + 1)));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+                done.add(line.substring(0, space));
+            }
+            return length;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * What one run of {@link #ingest} did.
+     */
+    public static final class Result {
+
+        private final int mShards;
+        private final int mSkippedShards;
+        private final int mFailedShards;
+        private final long mArticles;
+        private final long mElapsedMillis;
+
+        Result(int shards, int skippedShards, int failedShards, long articles,
+               long elapsedMillis) {
+            mShards = shards;
+            mSkippedShards = skippedShards;
+            mFailedShards = failedShards;
+            mArticles = articles;
+            mElapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Returns the number of shards the date range was split into
+         */
+        public int getShards() {
+            return mShards;
+        }
+
+        /**
+         * Returns the number of shards a previous run had already done
+         */
+        public int getSkippedShards() {
+            return mSkippedShards;
+        }
+
+        /**
+         * Returns the number of shards that could not be fetched, left for the next run
+         */
+        public int getFailedShards() {
+            return mFailedShards;
+        }
+
+        /**
+         * Returns the number of articles written by this run
+         */
+        public long getArticles() {
+            return mArticles;
+        }
+
+        /**
+         * Returns how long this run took, in milliseconds
+         */
+        public long getElapsedMillis() {
+            return mElapsedMillis;
+        }
+
+        /**
+         * Returns the articles written per second of this run
+         */
+        public double getArticlesPerSecond() {
+            return mElapsedMillis == 0 ? 0 : mArticles * 1000.0 / mElapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d articles in %.1f s (%.0f articles/s), %d shards: %d done before, %d failed",
+                    mArticles, mElapsedMillis / 1000.0, getArticlesPerSecond(), mShards,
+                    mSkippedShards, mFailedShards);
+        }
+    }
+
+    /**
+     * Runs an ingestion from the command line:
+     * {@code query|- fromDate toDate [shardDays] [output]}. The API key is read from the
+     * GUARDIAN_API_KEY environment variable. The checkpoint is kept next to the output.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: BatchIngester query|- fromDate toDate [shardDays] [output]");
+            System.exit(2);
+        }
+        String apiKey = System.getenv("GUARDIAN_API_KEY");
+        if (apiKey == null) {
+            apiKey = "test";
+        }
+        String query = "-".equals(args[0]) ? null : args[0];
+        int shardDays = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SHARD_DAYS;
+        File output = new File(args.length > 4 ? args[4] : "articles.bin");
+        File checkpoint = new File(output.getPath() + ".checkpoint");
+        // Process-wide, so set once here, before the first connection creates the pool.
+        PooledHttpClient.configureKeepAlive(QueryUtils.MAX_CONNECTIONS_PER_HOST);
+
+        BatchIngester ingester = new BatchIngester(FeedRequest.BASE_REQUEST_URL, apiKey,
+                DEFAULT_THREADS, new RateLimiter(DEFAULT_REQUESTS_PER_SECOND), MAX_PAGE_SIZE);
+        Result result = ingester.ingest(query, args[1], args[2], shardDays, output, checkpoint);
+        System.out.println(result);
+        System.exit(result.getFailedShards() == 0 ? 0 : 1);
+    }
+}
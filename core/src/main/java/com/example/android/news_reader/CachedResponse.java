@@ -0,0 +1,58 @@
+package com.example.android.news_reader;
+
+import java.util.List;
+
+/**
+ * The parsed articles of a Guardian response together with the HTTP validators the server
+ * sent with it, so the next request for the same URL can be made conditional.
+ */
+public class CachedResponse {
+
+    private final String mUrl;
+    private final String mETag;
+    private final String mLastModified;
+    private final List<Article> mArticles;
+
+    /**
+     * Constructs a new {@link CachedResponse}.
+     *
+     * @param url          is the request URL the response was fetched from
+     * @param eTag         is the value of the ETag response header, or null
+     * @param lastModified is the value of the Last-Modified response header, or null
+     * @param articles     is the list of articles parsed from the response body
+     */
+    public CachedResponse(String url, String eTag, String lastModified, List<Article> articles) {
+        mUrl = url;
+        mETag = eTag;
+        mLastModified = lastModified;
+        mArticles = articles;
+    }
+
+    /**
+     * Returns the request URL the response was fetched from
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * Returns the ETag validator, or null if the server did not send one
+     */
+    public String getETag() {
+        return mETag;
+    }
+
+    /**
+     * Returns the Last-Modified validator, or null if the server did not send one
+     */
+    public String getLastModified() {
+        return mLastModified;
+    }
+
+    /**
+     * Returns the articles parsed from the response body
+     */
+    public List<Article> getArticles() {
+        return mArticles;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.android.news_reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lets a load be abandoned part way through, including while it is blocked reading a socket.
+ * <p>
+ * A {@link FetchEngine} job makes its token current on the thread that runs it. Code deeper
+ * down finds it with {@link #current()}: {@link PooledHttpClient} attaches each connection it
+ * opens, so {@link #cancel()} disconnects it and the blocked read fails straight away, and
+ * {@link QueryUtils} stops retrying and returns null rather than a partly parsed list.
+ */
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> sCurrent = new ThreadLocal<>();
+
+    private volatile boolean mCancelled;
+
+    // Connections open on behalf of this token, closed by cancel(). Guarded by this.
+    private final Set<Closeable> mAttached = new HashSet<>();
+
+    /**
+     * Returns the token of the load running on this thread, or null if it cannot be cancelled
+     */
+    public static CancellationToken current() {
+        return sCurrent.get();
+    }
+
+    /**
+     * Returns true if the load running on this thread has been cancelled
+     */
+    public static boolean isCurrentCancelled() {
+        CancellationToken token = sCurrent.get();
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Makes the token current on this thread, for code called from here on to find.
+     *
+     * @param token is the token, or null for none
+     * @return the token that was current before, to restore when done
+     */
+    public static CancellationToken setCurrent(CancellationToken token) {
+        CancellationToken previous = sCurrent.get();
+        if (token == null) {
+            sCurrent.remove();
+        } else {
+            sCurrent.set(token);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns true once {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Cancels the load and closes every connection attached to it. Safe to call from any
+     * thread, and more than once.
+     */
+    public void cancel() {
+        List<Closeable> attached;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            attached = new ArrayList<>(mAttached);
+            mAttached.clear();
+            notifyAll();
+        }
+        for (Closeable closeable : attached) {
+            closeQuietly(closeable);
+        }
+    }
+
+    /**
+     * Attaches something to close if the load is cancelled. If it already has been, the
+     * closeable is closed straight away.
+     *
+     * @throws InterruptedIOException if the load has been cancelled
+     */
+    public void attach(Closeable closeable) throws InterruptedIOException {
+        synchronized (this) {
+            if (!mCancelled) {
+                mAttached.add(closeable);
+                return;
+            }
+        }
+        closeQuietly(closeable);
+        throw new InterruptedIOException("Cancelled");
+    }
+
+    /**
+     * Detaches what {@link #attach(Closeable)} attached, once it is done with.
+     */
+    public synchronized void detach(Closeable closeable) {
+        mAttached.remove(closeable);
+    }
+
+    /**
+     * Waits for the given time, or until the load is cancelled.
+     *
+     * @return true if the whole time passed, false if the load was cancelled
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public synchronized boolean sleep(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (!mCancelled && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return !mCancelled;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException | RuntimeException e) {
+            // Being cancelled, so nobody is waiting on how the connection ends.
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.android.news_reader;
+
+/**
+ * Stops requests to an endpoint that keeps failing, or that told us to back off, so an outage
+ * or an exhausted API quota costs one request now and then instead of one per refresh.
+ * <p>
+ * After {@code failureThreshold} failures in a row the breaker opens and every request is
+ * refused until {@code openDuration} has passed. Then a single trial request is let through:
+ * if it succeeds the breaker closes, if it fails the breaker opens again.
+ */
+public class CircuitBreaker {
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private final int mFailureThreshold;
+    private final long mOpenDuration;
+
+    private int mState = CLOSED;
+    private int mFailures;
+    private long mOpenUntil;
+
+    /**
+     * Constructs a new {@link CircuitBreaker}.
+     *
+     * @param failureThreshold is the number of failures in a row that opens the breaker
+     * @param openDuration     is how long the breaker stays open, in milliseconds
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        mFailureThreshold = failureThreshold;
+        mOpenDuration = openDuration;
+    }
+
+    /**
+     * Returns true if a request may be sent now. Once the breaker has been open long enough,
+     * this lets exactly one trial request through until its outcome is reported.
+     *
+     * @param now is the current time, in milliseconds since the epoch
+     */
+    public synchronized boolean allowRequest(long now) {
+        if (now < mOpenUntil) {
+            return false;
+        }
+        switch (mState) {
+            case OPEN:
+                mState = HALF_OPEN;
+                return true;
+            case HALF_OPEN:
+                // The trial request is still out.
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Reports that a request reached the endpoint and got an answer.
+     */
+    public synchronized void onSuccess() {
+        mFailures = 0;
+        if (mState == HALF_OPEN) {
+            mState = CLOSED;
+        }
+    }
+
+    /**
+     * Reports that a request failed or the endpoint answered with a server error.
+     *
+     * @param now is the current time, in milliseconds since the epoch
+     */
+    public synchronized void onFailure(long now) {
+        mFailures++;
+        if (mState == HALF_OPEN || mFailures >= mFailureThreshold) {
+            openUntil(now + mOpenDuration);
+        }
+    }
+
+    /**
+     * Reports that a request was abandoned by its caller before it had an answer. If it was
+     * the trial request, the breaker goes back to open, so the next request becomes the trial
+     * instead of the endpoint staying blocked for good.
+     */
+    public synchronized void releaseTrial() {
+        if (mState == HALF_OPEN) {
+            mState = OPEN;
+        }
+    }
+
+    /**
+     * Refuses every request until the given time, for example because the server asked us to
+     * wait or the API quota ran out.
+     *
+     * @param until is when requests may resume, in milliseconds since the epoch
+     */
+    public synchronized void openUntil(long until) {
+        mState = OPEN;
+        mOpenUntil = Math.max(mOpenUntil, until);
+    }
+
+    /**
+     * Returns true if requests are currently refused
+     *
+     * @param now is the current time, in milliseconds since the epoch
+     */
+    public synchronized boolean isOpen(long now) {
+        return mState != CLOSED && now < mOpenUntil;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.android.news_reader;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * One page of the user's feed: a Guardian search URL for every topic and section they follow,
+ * fetched together and merged into a single list.
+ */
+public class FeedRequest {
+
+    /**
+     * URL for article data from The Guardian
+     */
+    public static final String BASE_REQUEST_URL = "https://content.guardianapis.com/search?";
+
+    /**
+     * First day of the date range the feed is limited to, "yyyy-MM-dd".
+     */
+    public static final String FROM_DATE = "2018-01-01";
+
+    /**
+     * Last day of the date range the feed is limited to, inclusive, "yyyy-MM-dd".
+     */
+    public static final String TO_DATE = "2018-12-31";
+
+    /**
+     * Value of the order-by parameter that lists the oldest results first.
+     */
+    public static final String ORDER_BY_OLDEST = "oldest";
+
+    /**
+     * Value of the order-by parameter that lists the newest results first.
+     */
+    public static final String ORDER_BY_NEWEST = "newest";
+
+    /**
+     * Results requested per page of the feed.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 30;
+
+    // Characters left as they are in a query parameter, besides letters and digits.
+    private static final String UNRESERVED = "_-!.~'()*";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    // Separates the topics typed into the topic preference.
+    private static final char TOPIC_SEPARATOR = ',';
+
+    private final List<String> mUrls;
+    private final List<String> mQueries;
+    private final boolean mNewestFirst;
+    private final int mPage;
+    private final int mPageSize;
+
+    /**
+     * Constructs a new {@link FeedRequest}.
+     *
+     * @param urls        is one search URL per followed topic or section
+     * @param queries     is the followed topics and sections themselves, in the same order
+     * @param newestFirst is true if the results are ordered newest first
+     * @param page        is the page of the results the URLs ask for
+     * @param pageSize    is the number of results each URL asks for
+     */
+    public FeedRequest(List<String> urls, List<String> queries, boolean newestFirst, int page,
+                       int pageSize) {
+        mUrls = Collections.unmodifiableList(new ArrayList<>(urls));
+        mQueries = Collections.unmodifiableList(new ArrayList<>(queries));
+        mNewestFirst = newestFirst;
+        mPage = page;
+        mPageSize = pageSize;
+    }
+
+    /**
+     * Builds the request for one page of the feed.
+     *
+     * @param apiKey       is the Guardian API key sent with every URL
+     * @param orderBy      is the value of the order-by parameter, e.g. "newest"
+     * @param topics       is the followed topics, separated by commas
+     * @param sections     is the followed sections
+     * @param defaultTopic is the topic to search for when nothing is followed
+     * @param page         is the page of the results to ask for
+     * @param pageSize     is the number of results to ask for per topic
+     * @param projection   is the fields the screen showing the feed needs
+     */
+    public static FeedRequest create(String apiKey, String orderBy, String topics,
+                                     Collection<String> sections, String defaultTopic,
+                                     int page, int pageSize, ArticleProjection projection) {
+        List<String> urls = new ArrayList<>();
+        List<String> queries = new ArrayList<>();
+        for (String topic : splitTopics(topics)) {
+            urls.add(buildUrl(BASE_REQUEST_URL, apiKey, FROM_DATE, TO_DATE, orderBy,
+                    "q", topic, page, pageSize, projection));
+            queries.add(topic);
+        }
+        // Sorted so the same selection always makes the same request (and cache key).
+        for (String section : new TreeSet<>(sections)) {
+            urls.add(buildUrl(BASE_REQUEST_URL, apiKey, FROM_DATE, TO_DATE, orderBy,
+                    "section", section, page, pageSize, projection));
+            queries.add(section);
+        }
+        if (urls.isEmpty()) {
+            urls.add(buildUrl(BASE_REQUEST_URL, apiKey, FROM_DATE, TO_DATE, orderBy,
+                    "q", defaultTopic, page, pageSize, projection));
+            queries.add(defaultTopic);
+        }
+
+        boolean newestFirst = !ORDER_BY_OLDEST.equals(orderBy);
+        return new FeedRequest(urls, queries, newestFirst, page, pageSize);
+    }
+
+    /**
+     * Returns one search URL per followed topic or section
+     */
+    public List<String> getUrls() {
+        return mUrls;
+    }
+
+    /**
+     * Returns the followed topics and sections, one per URL
+     */
+    public List<String> getQueries() {
+        return mQueries;
+    }
+
+    /**
+     * Returns true if the results are ordered newest first
+     */
+    public boolean isNewestFirst() {
+        return mNewestFirst;
+    }
+
+    /**
+     * Returns the page of the results the URLs ask for
+     */
+    public int getPage() {
+        return mPage;
+    }
+
+    /**
+     * Returns the number of results each URL asks for
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Returns a key identifying this request, for caching its merged result
+     */
+    public String getCacheKey() {
+        if (mUrls.size() == 1) {
+            return mUrls.get(0);
+        }
+        StringBuilder key = new StringBuilder();
+        for (String url : mUrls) {
+            key.append(url).append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Builds a search URL for one page of the articles published between two days.
+     *
+     * @param baseUrl    is the search endpoint, ending in '?', normally {@link #BASE_REQUEST_URL}
+     * @param apiKey     is the Guardian API key
+     * @param query      is the text to search for, or null for every article
+     * @param fromDate   is the first day, "yyyy-MM-dd"
+     * @param toDate     is the last day, inclusive, "yyyy-MM-dd"
+     * @param orderBy    is the value of the order-by parameter
+     * @param page       is the page of the results to ask for
+     * @param pageSize   is the number of results to ask for
+     * @param projection is the fields to ask for
+     */
+    public static String searchUrl(String baseUrl, String apiKey, String query, String fromDate,
+                                   String toDate, String orderBy, int page, int pageSize,
+                                   ArticleProjection projection) {
+        return buildUrl(baseUrl, apiKey, fromDate, toDate, orderBy, "q", query, page, pageSize,
+                projection);
+    }
+
+    /**
+     * Turns a search URL of this class into one for the first page of just the results
+     * published at or after the given instant, newest first. Every other parameter is kept.
+     *
+     * @param url            is a URL from {@link #getUrls()}
+     * @param publishedAfter is the publication time of the newest article already held
+     */
+    public static String newerThan(String url, long publishedAfter) {
+        int queryStart = url.indexOf('?') + 1;
+        StringBuilder newer = new StringBuilder(url.length()).append(url, 0, queryStart);
+        for (String parameter : url.substring(queryStart).split("&")) {
+            String key = parameter.substring(0, Math.max(parameter.indexOf('='), 0));
+            String value = null;
+            if ("from-date".equals(key)) {
+                value = IsoDates.format(publishedAfter);
+            } else if ("order-by".equals(key)) {
+                value = ORDER_BY_NEWEST;
+            } else if ("page".equals(key)) {
+                value = "1";
+            }
+            if (value == null) {
+                if (newer.charAt(newer.length() - 1) != '?') {
+                    newer.append('&');
+                }
+                newer.append(parameter);
+            } else {
+                appendQueryParameter(newer, key, value);
+            }
+        }
+        return newer.toString();
+    }
+
+    // Builds a search URL with the parameters in one fixed order, so the same search always
+    // has the same cache key. A null filter value leaves the filter out, and so does a
+    // projection of only the fields every result carries.
+    private static String buildUrl(String baseUrl, String apiKey, String fromDate,
+                                   String toDate, String orderBy, String filterKey,
+                                   String filterValue, int page, int pageSize,
+                                   ArticleProjection projection) {
+        StringBuilder url = new StringBuilder(baseUrl);
+        appendQueryParameter(url, "from-date", fromDate);
+        appendQueryParameter(url, "to-date", toDate);
+        String showFields = projection.getShowFields();
+        if (showFields != null) {
+            appendQueryParameter(url, "show-fields", showFields);
+        }
+        appendQueryParameter(url, "order-by", orderBy);
+        if (filterValue != null) {
+            appendQueryParameter(url, filterKey, filterValue);
+        }
+        appendQueryParameter(url, "page", String.valueOf(page));
+        appendQueryParameter(url, "page-size", String.valueOf(pageSize));
+        appendQueryParameter(url, "api-key", apiKey);
+        return url.toString();
+    }
+
+    // Appends key=value, encoded the way android.net.Uri encodes it, so cache keys written
+    // before the request was built here still match.
+    private static void appendQueryParameter(StringBuilder url, String key, String value) {
+        if (url.charAt(url.length() - 1) != '?') {
+            url.append('&');
+        }
+        url.append(encode(key)).append('=').append(encode(value));
+    }
+
+    // Percent-encodes everything but the characters android.net.Uri.encode leaves alone.
+    private static String encode(String value) {
+        byte[] bytes;
+        try {
+            bytes = value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+        StringBuilder encoded = new StringBuilder(bytes.length);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || UNRESERVED.indexOf(c) >= 0) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    // Splits "bitcoin, ethereum" into its topics, dropping blanks and repeats.
+    private static List<String> splitTopics(String topics) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        while (start <= topics.length()) {
+            int end = topics.indexOf(TOPIC_SEPARATOR, start);
+            if (end < 0) {
+                end = topics.length();
+            }
+            String topic = topics.substring(start, end).trim();
+            if (!topic.isEmpty() && !result.contains(topic)) {
+                result.add(topic);
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.android.news_reader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fetches a {@link FeedRequest} and keeps {@link ArticleCache} up to date with the result.
+ * Shared by the app's ArticleLoader, which revalidates what is on screen, and its
+ * PrefetchJobService, which warms the cache while the app is closed.
+ * <p>
+ * Every full fetch of the first page of a newest-first feed records, per URL, the publication
+ * time of the newest article it returned. {@link #refreshNewer(File, FeedRequest, List)} then
+ * asks only for what was published since and merges it in on top.
+ */
+public final class FeedSync {
+
+    private static final String LOG_TAG = FeedSync.class.getSimpleName();
+
+    // The marks of the cache directory last used. Guarded by FeedSync.class.
+    private static HighWaterMarks sMarks;
+    private static File sMarksDir;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link FeedSync} object.
+     */
+    private FeedSync() {
+    }
+
+    /**
+     * Fetches every URL of the request and stores the merged articles, unless they equal the
+     * ones already held.
+     *
+     * @param cacheDir the app's cache directory
+     * @param request  the feed to fetch
+     * @param current  the articles already held for the request, or null
+     * @return the fetched articles, {@code current} itself if nothing changed, or null if the
+     * request failed
+     */
+    public static List<Article> refresh(File cacheDir, FeedRequest request, List<Article> current) {
+        String cacheKey = request.getCacheKey();
+
+        // Perform the network requests, parse the responses, and merge them into one list of
+        // articles.
+        long fetchStart = Metrics.start();
+        List<List<Article>> results = QueryUtils.fetchEach(request.getUrls(), true);
+        Metrics.stop(Metrics.FEED_FETCH, fetchStart);
+        if (results == null) {
+            return null;
+        }
+        List<List<Article>> fetched = new ArrayList<>(results.size());
+        for (List<Article> result : results) {
+            if (result != null) {
+                fetched.add(result);
+            }
+        }
+        if (fetched.isEmpty()) {
+            return null;
+        }
+        List<Article> articles = fetched.size() == 1 ? fetched.get(0)
+                : QueryUtils.mergeByDate(fetched, request.isNewestFirst());
+        if (tracksMarks(request)) {
+            HighWaterMarks marks = marksFor(cacheDir);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) != null) {
+                    marks.advance(request.getUrls().get(i), results.get(i));
+                }
+            }
+            marks.save();
+        }
+        if (articles.equals(current)) {
+            ArticleCache.markValidated(cacheDir, cacheKey);
+            QueryUtils.getMemoryCache().put(cacheKey, current, System.currentTimeMillis());
+            return current;
+        }
+        QueryUtils.getMemoryCache().put(cacheKey, articles, System.currentTimeMillis());
+
+        // A single URL keeps its HTTP validators; a merged feed has none of its own.
+        CachedResponse response = QueryUtils.getCachedResponse(cacheKey);
+        if (response == null || response.getArticles() != articles) {
+            response = new CachedResponse(cacheKey, null, null, articles);
+        }
+        ArticleCache.write(cacheDir, response);
+        return articles;
+    }
+
+    /**
+     * Fetches only the articles published since the last refresh and merges them in on top of
+     * the ones already held. Falls back to {@link #refresh(File, FeedRequest, List)} when that
+     * cannot be done safely: for a later page, an oldest-first feed, a URL that has no mark
+     * yet, or a URL with a whole page of new articles, which may have more beyond it.
+     *
+     * @param cacheDir the app's cache directory
+     * @param request  the feed to fetch
+     * @param current  the articles already held for the request, or null
+     * @return the articles with the new ones on top, {@code current} itself if nothing was
+     * published since, or null if the request failed
+     */
+    public static List<Article> refreshNewer(File cacheDir, FeedRequest request,
+                                             List<Article> current) {
+        if (current == null || !tracksMarks(request)) {
+            return refresh(cacheDir, request, current);
+        }
+        HighWaterMarks marks = marksFor(cacheDir);
+        List<String> urls = request.getUrls();
+        List<String> newerUrls = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            long mark = marks.get(url);
+            if (mark == 0) {
+                return refresh(cacheDir, request, current);
+            }
+            newerUrls.add(FeedRequest.newerThan(url, mark));
+        }
+
+        // The from-date changes every time, so there is nothing to gain from keeping these
+        // responses for a conditional request.
+        long fetchStart = Metrics.start();
+        List<List<Article>> results = QueryUtils.fetchEach(newerUrls, false);
+        Metrics.stop(Metrics.FEED_DELTA_FETCH, fetchStart);
+        if (results == null) {
+            return null;
+        }
+        List<List<Article>> lists = new ArrayList<>(results.size() + 1);
+        for (List<Article> result : results) {
+            if (result == null) {
+                continue;
+            }
+            if (result.size() >= request.getPageSize()) {
+                Logging.v(LOG_TAG, "A whole page is new, fetching the feed in full.");
+                return refresh(cacheDir, request, current);
+            }
+            lists.add(result);
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        String cacheKey = request.getCacheKey();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                marks.advance(urls.get(i), results.get(i));
+                QueryUtils.getIndex().addAll(results.get(i));
+            }
+        }
+        marks.save();
+
+        // The from-date is inclusive and to the second, so the newest articles already held
+        // come back too; merging drops them as duplicates.
+        lists.add(current);
+        List<Article> articles = QueryUtils.mergeByDate(lists, true);
+        int limit = Math.max(current.size(), urls.size() * request.getPageSize());
+        if (articles.size() > limit) {
+            articles = new ArrayList<>(articles.subList(0, limit));
+        }
+        if (articles.equals(current)) {
+            ArticleCache.markValidated(cacheDir, cacheKey);
+            QueryUtils.getMemoryCache().put(cacheKey, current, System.currentTimeMillis());
+            return current;
+        }
+        QueryUtils.getMemoryCache().put(cacheKey, articles, System.currentTimeMillis());
+
+        // The validators of the last full response describe a list without the new articles,
+        // so they must not be sent again or stored with this one.
+        for (String url : urls) {
+            QueryUtils.removeCachedResponse(url);
+        }
+        ArticleCache.write(cacheDir, new CachedResponse(cacheKey, null, null, articles));
+        return articles;
+    }
+
+    /**
+     * Brings the stored articles of the request up to date, sending the stored validators so
+     * an unchanged feed costs a 304.
+     *
+     * @param cacheDir the app's cache directory
+     * @param request  the feed to fetch
+     * @return the fetched articles, the stored ones themselves if nothing changed, or null if
+     * the request failed
+     */
+    public static List<Article> prefetch(File cacheDir, FeedRequest request) {
+        CachedResponse cached = ArticleCache.read(cacheDir, request.getCacheKey());
+        List<Article> current = null;
+        if (cached != null) {
+            QueryUtils.putCachedResponse(cached);
+            current = cached.getArticles();
+        }
+        List<Article> articles = refresh(cacheDir, request, current);
+        if (articles == null) {
+            Logging.e(LOG_TAG, "Prefetching the feed failed.");
+        }
+        return articles;
+    }
+
+    /**
+     * Answers the request from the articles already parsed in this process, without the
+     * network: the newest indexed matches of each topic and section, merged like a fetched
+     * feed and cut to one page.
+     *
+     * @param request the feed to look up
+     * @return the matching articles, empty if none were indexed
+     */
+    public static List<Article> searchLocal(FeedRequest request) {
+        ArticleIndex index = QueryUtils.getIndex();
+        List<List<Article>> results = new ArrayList<>();
+        for (String query : request.getQueries()) {
+            List<Article> matches = new ArrayList<>(index.search(query, request.getPageSize()));
+            if (!request.isNewestFirst()) {
+                // The index hands matches back newest first.
+                Collections.reverse(matches);
+            }
+            results.add(matches);
+        }
+        List<Article> merged = QueryUtils.mergeByDate(results, request.isNewestFirst());
+        if (merged.size() > request.getPageSize()) {
+            merged = new ArrayList<>(merged.subList(0, request.getPageSize()));
+        }
+        return merged;
+    }
+
+    // Marks are only kept where the first page holds the newest articles of each URL.
+    private static boolean tracksMarks(FeedRequest request) {
+        return request.isNewestFirst() && request.getPage() == 1;
+    }
+
+    private static synchronized HighWaterMarks marksFor(File cacheDir) {
+        if (sMarks == null || !cacheDir.equals(sMarksDir)) {
+            sMarks = new HighWaterMarks(cacheDir);
+            sMarksDir = cacheDir;
+        }
+        return sMarks;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.android.news_reader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs feed loads on a small pool of threads of its own, the most urgent first: the page on
+ * screen, then the next page, then background prefetches. Jobs of the same priority run in
+ * the order they were submitted.
+ * <p>
+ * Every job carries a {@link CancellationToken}. Cancelling a job that has not started takes
+ * it out of the queue; cancelling one that is running disconnects its socket, so it ends
+ * within moments rather than when the response has been read.
+ */
+public class FetchEngine {
+
+    private static final String LOG_TAG = FetchEngine.class.getSimpleName();
+
+    /**
+     * The page the user is looking at.
+     */
+    public static final int PRIORITY_VISIBLE = 0;
+
+    /**
+     * A page the user is about to scroll to.
+     */
+    public static final int PRIORITY_NEXT_PAGE = 1;
+
+    /**
+     * Work nobody is waiting on, such as warming the cache.
+     */
+    public static final int PRIORITY_PREFETCH = 2;
+
+    /**
+     * Told the result of a job, on the thread that ran it. Not called for a cancelled job.
+     */
+    public interface Callback<T> {
+        void onResult(Job<T> job, T result);
+    }
+
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Constructs a new {@link FetchEngine}.
+     *
+     * @param threads is the most jobs run at once
+     * @param name    names the threads
+     */
+    public FetchEngine(int threads, final String name) {
+        mExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, name + "-" + mCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param priority is one of the PRIORITY constants; lower runs first
+     * @param work     is the load itself
+     * @param callback is told the result, or null
+     * @return the job, to cancel it with
+     */
+    public <T> Job<T> submit(int priority, Callable<T> work, Callback<T> callback) {
+        Job<T> job = new Job<>(this, priority, mSequence.getAndIncrement(), work, callback);
+        mExecutor.execute(job);
+        return job;
+    }
+
+    /**
+     * Returns the number of jobs waiting to run
+     */
+    public int getQueuedCount() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of jobs running
+     */
+    public int getActiveCount() {
+        return mExecutor.getActiveCount();
+    }
+
+    /**
+     * A load queued on or running in a {@link FetchEngine}.
+     */
+    public static final class Job<T> implements Runnable, Comparable<Job<?>> {
+
+        private final FetchEngine mEngine;
+        private final int mPriority;
+        private final long mSequence;
+        private final Callable<T> mWork;
+        private final Callback<T> mCallback;
+        private final CancellationToken mToken = new CancellationToken();
+
+        private Job(FetchEngine engine, int priority, long sequence, Callable<T> work,
+                    Callback<T> callback) {
+            mEngine = engine;
+            mPriority = priority;
+            mSequence = sequence;
+            mWork = work;
+            mCallback = callback;
+        }
+
+        /**
+         * Returns the priority the job was submitted with
+         */
+        public int getPriority() {
+            return mPriority;
+        }
+
+        /**
+         * Returns true once the job has been cancelled
+         */
+        public boolean isCancelled() {
+            return mToken.isCancelled();
+        }
+
+        /**
+         * Cancels the job: it is dropped if it has not started, and its connections are closed
+         * if it has. The callback is not told.
+         */
+        public void cancel() {
+            mToken.cancel();
+            mEngine.mExecutor.remove(this);
+        }
+
+        @Override
+        public void run() {
+            if (mToken.isCancelled()) {
+                return;
+            }
+            CancellationToken previous = CancellationToken.setCurrent(mToken);
+            T result = null;
+            try {
+                result = mWork.call();
+            } catch (Exception e) {
+                if (!mToken.isCancelled()) {
+                    Logging.e(LOG_TAG, "Problem running a fetch.", e);
+                }
+            } finally {
+                CancellationToken.setCurrent(previous);
+            }
+            if (mCallback != null && !mToken.isCancelled()) {
+                mCallback.onResult(this, result);
+            }
+        }
+
+        @Override
+        public int compareTo(Job<?> other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : mSequence == other.mSequence ? 0 : 1;
+        }
+    }
+}
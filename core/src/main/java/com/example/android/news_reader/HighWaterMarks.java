@@ -0,0 +1,156 @@
+package com.example.android.news_reader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers, for each search URL, the publication time of the newest article it has returned,
+ * so a refresh can ask only for what was published since.
+ * <p>
+ * The marks live in memory and are written to a small file in the cache directory by
+ * {@link #save()}, one "url TAB millis" line each, so they survive the process.
+ */
+public class HighWaterMarks {
+
+    private static final String LOG_TAG = HighWaterMarks.class.getSimpleName();
+    private static final String FILE_NAME = "high_water_marks";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File mFile;
+
+    // Read from the file on first use. Guarded by this.
+    private Map<String, Long> mMarks;
+    private boolean mDirty;
+
+    /**
+     * Constructs a new {@link HighWaterMarks}.
+     *
+     * @param cacheDir the app's cache directory
+     */
+    public HighWaterMarks(File cacheDir) {
+        mFile = new File(cacheDir, FILE_NAME);
+    }
+
+    /**
+     * Returns the publication time of the newest article the URL has returned, or 0 if it has
+     * never been fetched
+     */
+    public synchronized long get(String url) {
+        Long mark = marks().get(url);
+        return mark == null ? 0 : mark;
+    }
+
+    /**
+     * Moves the mark of the URL up to the newest of the given articles. A mark never moves
+     * back.
+     *
+     * @param url      the articles were fetched from
+     * @param articles is what the URL returned
+     */
+    public synchronized void advance(String url, List<Article> articles) {
+        long newest = get(url);
+        for (Article article : articles) {
+            newest = Math.max(newest, article.getPublishedAt());
+        }
+        if (newest > get(url)) {
+            marks().put(url, newest);
+            mDirty = true;
+        }
+    }
+
+    /**
+     * Writes the marks to disk if they changed since they were read.
+     */
+    public synchronized void save() {
+        if (!mDirty) {
+            return;
+        }
+        File dir = mFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Logging.e(LOG_TAG, "Could not create " + dir);
+            return;
+        }
+
+        // Written beside the file and renamed into place, so a crash never leaves half of it.
+        File temp = new File(dir, FILE_NAME + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF_8));
+            for (Map.Entry<String, Long> mark : mMarks.entrySet()) {
+                writer.write(mark.getKey());
+                writer.write('\t');
+                writer.write(String.valueOf(mark.getValue()));
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (temp.renameTo(mFile)) {
+                mDirty = false;
+            } else {
+                Logging.e(LOG_TAG, "Could not move the high water marks into place.");
+            }
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem writing the high water marks.", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Already failing; the temporary file is deleted below.
+                }
+            }
+            if (temp.exists() && !temp.delete()) {
+                Logging.w(LOG_TAG, "Could not delete " + temp);
+            }
+        }
+    }
+
+    // Returns the marks, reading them from disk the first time.
+    private Map<String, Long> marks() {
+        if (mMarks != null) {
+            return mMarks;
+        }
+        mMarks = new HashMap<>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(mFile), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    try {
+                        mMarks.put(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+                    } catch (NumberFormatException e) {
+                        // A damaged line only costs that URL a full refresh.
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing fetched yet.
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem reading the high water marks.", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // Done reading anyway.
+                }
+            }
+        }
+        return mMarks;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.android.news_reader;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Thrown when The Guardian answers a request with a status other than 200 or 304.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Too Many Requests; HttpURLConnection has no constant for it.
+    static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final int mResponseCode;
+    private final String mRetryAfter;
+
+    /**
+     * Constructs a new {@link HttpStatusException}.
+     *
+     * @param responseCode is the HTTP status of the response
+     * @param retryAfter   is the Retry-After header of the response, or null
+     */
+    public HttpStatusException(int responseCode, String retryAfter) {
+        super("Error response code: " + responseCode);
+        mResponseCode = responseCode;
+        mRetryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the HTTP status of the response
+     */
+    public int getResponseCode() {
+        return mResponseCode;
+    }
+
+    /**
+     * Returns the Retry-After header of the response, or null if it had none
+     */
+    public String getRetryAfter() {
+        return mRetryAfter;
+    }
+
+    /**
+     * Returns true if the same request may succeed if it is sent again later: the server was
+     * overloaded, rate limited us or failed, rather than rejecting the request itself.
+     */
+    public boolean isRetryable() {
+        return mResponseCode == HTTP_TOO_MANY_REQUESTS
+                || mResponseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                || mResponseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+}
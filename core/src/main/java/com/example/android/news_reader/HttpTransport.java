@@ -0,0 +1,45 @@
+package com.example.android.news_reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Sends the GET requests of {@link QueryUtils}. {@link PooledHttpClient} is the default; a
+ * server-side aggregator or a test can plug in its own.
+ *
+ * @see QueryUtils#setHttpTransport(HttpTransport)
+ */
+public interface HttpTransport {
+
+    /**
+     * Performs a GET request. The caller must close the returned {@link Response}.
+     *
+     * @param url     to request
+     * @param headers to add to the request
+     */
+    Response get(URL url, Map<String, String> headers) throws IOException;
+
+    /**
+     * The status, headers and body of one response.
+     */
+    interface Response extends Closeable {
+
+        /**
+         * Returns the HTTP status code
+         */
+        int getResponseCode();
+
+        /**
+         * Returns the value of the named response header, or null
+         */
+        String getHeader(String name);
+
+        /**
+         * Returns the raw (possibly compressed) response body
+         */
+        InputStream getBody() throws IOException;
+    }
+}
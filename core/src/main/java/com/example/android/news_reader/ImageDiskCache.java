@@ -0,0 +1,235 @@
+package com.example.android.news_reader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk cache of downloaded images, one file per image URL, bounded by the total bytes held.
+ * When a download takes it over the limit the least recently used images are deleted; use is
+ * recorded in each file's modification time, so the order survives a restart.
+ * <p>
+ * The files hold the bytes exactly as served, so decoding (and downsampling) stays with the
+ * caller, who knows how big the image will be shown.
+ */
+public class ImageDiskCache {
+
+    private static final String LOG_TAG = ImageDiskCache.class.getSimpleName();
+
+    // A thumbnail is tens of kilobytes; anything far bigger is not worth the disk or the decode.
+    private static final int MAX_IMAGE_BYTES = 2 * 1024 * 1024;
+
+    private final File mDir;
+    private final long mMaxBytes;
+
+    // File name to length, access ordered, so iteration starts from the least recently used.
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<>(64, 0.75f, true);
+    private long mSize;
+    private boolean mLoaded;
+
+    /**
+     * Constructs a new {@link ImageDiskCache}. The directory is read on first use, not here.
+     *
+     * @param dir      is the directory the images are stored in, created if missing
+     * @param maxBytes is the most bytes of images kept
+     */
+    public ImageDiskCache(File dir, long maxBytes) {
+        mDir = dir;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the stored image for the URL, or null if it is not in the cache.
+     */
+    public synchronized File get(String url) {
+        load();
+        String name = ArticleCache.hashName(url);
+        if (mEntries.get(name) == null) {
+            return null;
+        }
+        File file = new File(mDir, name);
+        if (!file.exists()) {
+            mSize -= mEntries.remove(name);
+            return null;
+        }
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            Logging.e(LOG_TAG, "Could not update the image cache entry time.");
+        }
+        return file;
+    }
+
+    /**
+     * Returns the stored image for the URL, downloading it first if it is not in the cache.
+     * Blocks; call it off the main thread.
+     *
+     * @param transport sends the request
+     * @param url       of the image
+     * @return the image file, or null if it could not be downloaded
+     */
+    public File fetch(HttpTransport transport, String url) {
+        File file = get(url);
+        if (file != null) {
+            Metrics.count(Metrics.IMAGE_DISK_HITS, 1);
+            return file;
+        }
+
+        long fetchStart = Metrics.start();
+        HttpTransport.Response response = null;
+        try {
+            response = transport.get(new URL(url), Collections.<String, String>emptyMap());
+            if (response.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                Logging.e(LOG_TAG, "Error response code: " + response.getResponseCode());
+                return null;
+            }
+            file = put(url, Metrics.countBytes(response.getBody(), Metrics.HTTP_BYTES));
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem downloading the image.", e);
+            return null;
+        } finally {
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                    // The image is stored, or it is not; either way there is nothing to do.
+                }
+            }
+        }
+        Metrics.stop(Metrics.IMAGE_FETCH, fetchStart);
+        return file;
+    }
+
+    /**
+     * Stores an image read from the stream, replacing any stored for the URL, and deletes the
+     * least recently used images if the cache is now over its limit. The stream is not closed.
+     *
+     * @return the image file
+     * @throws IOException if the image could not be read or written, or is too big to keep
+     */
+    public File put(String url, InputStream in) throws IOException {
+        synchronized (this) {
+            load();
+        }
+        String name = ArticleCache.hashName(url);
+        File file = new File(mDir, name);
+
+        // Written to a temporary file first and renamed into place, so a reader never sees a
+        // half written image. Concurrent downloads of one URL each get their own.
+        File temp = File.createTempFile(name, ".tmp", mDir);
+        long length = 0;
+        boolean written = false;
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                length += read;
+                if (length > MAX_IMAGE_BYTES) {
+                    throw new IOException("Image larger than " + MAX_IMAGE_BYTES + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            written = true;
+        } finally {
+            out.close();
+            if (!written) {
+                delete(temp);
+            }
+        }
+
+        synchronized (this) {
+            if (!temp.renameTo(file)) {
+                delete(temp);
+                throw new IOException("Could not store the image");
+            }
+            Long previous = mEntries.put(name, length);
+            mSize += length - (previous == null ? 0 : previous);
+            trimToSize(mMaxBytes);
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the least recently used images until at most the given bytes are held.
+     */
+    public synchronized void trimToSize(long maxBytes) {
+        load();
+        Iterator<Map.Entry<String, Long>> eldest = mEntries.entrySet().iterator();
+        while (mSize > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            delete(new File(mDir, entry.getKey()));
+            mSize -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns the bytes of images held
+     */
+    public synchronized long size() {
+        load();
+        return mSize;
+    }
+
+    /**
+     * Returns the number of images held
+     */
+    public synchronized int count() {
+        load();
+        return mEntries.size();
+    }
+
+    // Reads what is already on disk, oldest first, and clears out interrupted downloads.
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Logging.e(LOG_TAG, "Could not create the image cache directory.");
+            return;
+        }
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return lastModified[a] < lastModified[b] ? -1
+                        : lastModified[a] == lastModified[b] ? 0 : 1;
+            }
+        });
+        for (Integer i : order) {
+            File file = files[i];
+            if (file.getName().endsWith(".tmp")) {
+                delete(file);
+            } else {
+                mEntries.put(file.getName(), file.length());
+                mSize += file.length();
+            }
+        }
+        trimToSize(mMaxBytes);
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            Logging.e(LOG_TAG, "Could not delete " + file.getName());
+        }
+    }
+}
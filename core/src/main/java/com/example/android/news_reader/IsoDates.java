@@ -0,0 +1,143 @@
+package com.example.android.news_reader;
+
+/**
+ * Conversion between the ISO-8601 timestamps The Guardian sends
+ * ("2018-07-23T09:30:00Z") and epoch milliseconds, so dates are parsed once and then kept
+ * as a primitive.
+ */
+public final class IsoDates {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link IsoDates} object.
+     */
+    private IsoDates() {
+    }
+
+    /**
+     * Parses "yyyy-MM-dd", "yyyy-MM-ddTHH:mm:ss", with optional fraction of a second and an
+     * optional "Z" or "+hh:mm" offset, into milliseconds since the epoch.
+     *
+     * @return the instant, or 0 if the text is not a timestamp
+     */
+    public static long parse(String iso) {
+        if (iso == null || iso.length() < 10) {
+            return 0;
+        }
+        try {
+            int year = digits(iso, 0, 4);
+            int month = digits(iso, 5, 7);
+            int day = digits(iso, 8, 10);
+            int hour = 0;
+            int minute = 0;
+            int second = 0;
+            int millis = 0;
+            long offset = 0;
+
+            int length = iso.length();
+            if (length >= 19 && iso.charAt(10) == 'T') {
+                hour = digits(iso, 11, 13);
+                minute = digits(iso, 14, 16);
+                second = digits(iso, 17, 19);
+                int pos = 19;
+                if (pos < length && iso.charAt(pos) == '.') {
+                    pos++;
+                    int scale = 100;
+                    while (pos < length && Character.isDigit(iso.charAt(pos))) {
+                        millis += (iso.charAt(pos) - '0') * scale;
+                        scale /= 10;
+                        pos++;
+                    }
+                }
+                if (pos < length && (iso.charAt(pos) == '+' || iso.charAt(pos) == '-')) {
+                    int sign = iso.charAt(pos) == '-' ? -1 : 1;
+                    int offsetHours = digits(iso, pos + 1, pos + 3);
+                    int minuteStart = iso.charAt(pos + 3) == ':' ? pos + 4 : pos + 3;
+                    int offsetMinutes = digits(iso, minuteStart, minuteStart + 2);
+                    offset = sign * (offsetHours * 60L + offsetMinutes) * 60000L;
+                }
+            }
+
+            long days = daysFromCivil(year, month, day);
+            return days * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L
+                    + millis - offset;
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Formats the UTC day of an instant as "yyyy-MM-dd".
+     */
+    public static String formatDay(long epochMillis) {
+        long days = epochMillis / MILLIS_PER_DAY;
+        if (epochMillis % MILLIS_PER_DAY < 0) {
+            days--;
+        }
+
+        // Inverse of daysFromCivil.
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] text = new char[10];
+        text[0] = (char) ('0' + year / 1000 % 10);
+        text[1] = (char) ('0' + year / 100 % 10);
+        text[2] = (char) ('0' + year / 10 % 10);
+        text[3] = (char) ('0' + year % 10);
+        text[4] = '-';
+        text[5] = (char) ('0' + month / 10);
+        text[6] = (char) ('0' + month % 10);
+        text[7] = '-';
+        text[8] = (char) ('0' + day / 10);
+        text[9] = (char) ('0' + day % 10);
+        return new String(text);
+    }
+
+    /**
+     * Formats an instant in UTC as "yyyy-MM-ddTHH:mm:ssZ", dropping the milliseconds.
+     */
+    public static String format(long epochMillis) {
+        long timeOfDay = epochMillis % MILLIS_PER_DAY;
+        if (timeOfDay < 0) {
+            timeOfDay += MILLIS_PER_DAY;
+        }
+        int seconds = (int) (timeOfDay / 1000);
+        int hour = seconds / 3600;
+        int minute = seconds / 60 % 60;
+        int second = seconds % 60;
+        return formatDay(epochMillis) + 'T'
+                + (char) ('0' + hour / 10) + (char) ('0' + hour % 10) + ':'
+                + (char) ('0' + minute / 10) + (char) ('0' + minute % 10) + ':'
+                + (char) ('0' + second / 10) + (char) ('0' + second % 10) + 'Z';
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date.
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yoe = year - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
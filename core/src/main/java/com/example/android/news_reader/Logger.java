@@ -0,0 +1,25 @@
+package com.example.android.news_reader;
+
+/**
+ * Where the core library sends its log messages. The app plugs in one backed by
+ * android.util.Log; off-device the messages go to standard error.
+ *
+ * @see Logging#setLogger(Logger)
+ */
+public interface Logger {
+
+    /**
+     * Logs a verbose message.
+     */
+    void v(String tag, String message);
+
+    /**
+     * Logs a warning, with the exception that caused it or null.
+     */
+    void w(String tag, String message, Throwable error);
+
+    /**
+     * Logs an error, with the exception that caused it or null.
+     */
+    void e(String tag, String message, Throwable error);
+}
@@ -0,0 +1,64 @@
+package com.example.android.news_reader;
+
+/**
+ * Logging calls of the core library, handed to the {@link Logger} currently set.
+ */
+public final class Logging {
+
+    // Off-device default: warnings and errors to standard error, verbose messages dropped.
+    private static final Logger STANDARD_ERROR = new Logger() {
+        @Override
+        public void v(String tag, String message) {
+        }
+
+        @Override
+        public void w(String tag, String message, Throwable error) {
+            print("W", tag, message, error);
+        }
+
+        @Override
+        public void e(String tag, String message, Throwable error) {
+            print("E", tag, message, error);
+        }
+
+        private void print(String level, String tag, String message, Throwable error) {
+            System.err.println(level + "/" + tag + ": " + message
+                    + (error == null ? "" : ": " + error));
+        }
+    };
+
+    private static volatile Logger sLogger = STANDARD_ERROR;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Logging} object.
+     */
+    private Logging() {
+    }
+
+    /**
+     * Sends every log message from now on to the given logger.
+     */
+    public static void setLogger(Logger logger) {
+        sLogger = logger;
+    }
+
+    static void v(String tag, String message) {
+        sLogger.v(tag, message);
+    }
+
+    static void w(String tag, String message) {
+        sLogger.w(tag, message, null);
+    }
+
+    static void w(String tag, String message, Throwable error) {
+        sLogger.w(tag, message, error);
+    }
+
+    static void e(String tag, String message) {
+        sLogger.e(tag, message, null);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        sLogger.e(tag, message, error);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.android.news_reader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timers and counters around the hot paths (fetch, parse, bind), so a slow refresh can be
+ * traced to the stage that caused it. Timings are kept as {@link Histogram}s and can be
+ * printed with {@link #dump(PrintWriter)}.
+ * <p>
+ * Everything is off until {@link #setEnabled(boolean)} turns it on; while off, a timer costs
+ * one volatile read and records nothing.
+ */
+public final class Metrics {
+
+    /**
+     * Time to open the connection and send the request, DNS and TLS included.
+     */
+    public static final String HTTP_CONNECT = "http.connect";
+
+    /**
+     * Time from the request being sent to the status line arriving.
+     */
+    public static final String HTTP_FIRST_BYTE = "http.first_byte";
+
+    /**
+     * Time to stream and parse one response body.
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * Time to fetch a whole feed, every topic and retry included.
+     */
+    public static final String FEED_FETCH = "feed.fetch";
+
+    /**
+     * Time to fetch only the articles published since the last refresh of a feed.
+     */
+    public static final String FEED_DELTA_FETCH = "feed.delta_fetch";
+
+    /**
+     * Time to write one fetched page to the article database.
+     */
+    public static final String STORE_WRITE = "store.write";
+
+    /**
+     * Time to run a filter over the article database and read its first window of rows.
+     */
+    public static final String STORE_QUERY = "store.query";
+
+    /**
+     * Time to bind one row of the list.
+     */
+    public static final String BIND = "bind";
+
+    /**
+     * Time to download one image into the disk cache.
+     */
+    public static final String IMAGE_FETCH = "image.fetch";
+
+    /**
+     * Time to decode and downsample one image.
+     */
+    public static final String IMAGE_DECODE = "image.decode";
+
+    /**
+     * Response body bytes read off the network, before decompression.
+     */
+    public static final String HTTP_BYTES = "http.bytes";
+
+    /**
+     * Articles parsed.
+     */
+    public static final String ARTICLES_PARSED = "articles.parsed";
+
+    /**
+     * Images shown straight from memory, without touching the disk or the network.
+     */
+    public static final String IMAGE_MEMORY_HITS = "image.memory_hits";
+
+    /**
+     * Images read from the disk cache rather than downloaded.
+     */
+    public static final String IMAGE_DISK_HITS = "image.disk_hits";
+
+    /**
+     * Image loads cancelled because their row scrolled away first.
+     */
+    public static final String IMAGE_CANCELLED = "image.cancelled";
+
+    private static volatile boolean sEnabled;
+
+    private static final ConcurrentMap<String, Histogram> sTimers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicLong> sCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Metrics} object.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Turns recording on or off. What was recorded so far is kept.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Returns true if metrics are being recorded
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Starts a timer.
+     *
+     * @return the start time to pass to {@link #stop(String, long)}, or 0 if disabled
+     */
+    public static long start() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since a {@link #start()} under the given timer.
+     *
+     * @param timer     is one of the timer names of this class
+     * @param startTime is what {@link #start()} returned
+     */
+    public static void stop(String timer, long startTime) {
+        if (startTime != 0 && sEnabled) {
+            histogram(timer).record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter is one of the counter names of this class
+     * @param delta   is the amount to add
+     */
+    public static void count(String counter, long delta) {
+        if (!sEnabled) {
+            return;
+        }
+        AtomicLong value = sCounters.get(counter);
+        if (value == null) {
+            AtomicLong created = new AtomicLong();
+            value = sCounters.putIfAbsent(counter, created);
+            if (value == null) {
+                value = created;
+            }
+        }
+        value.addAndGet(delta);
+    }
+
+    /**
+     * Returns the histogram of a timer, in nanoseconds
+     */
+    public static Histogram histogram(String timer) {
+        Histogram histogram = sTimers.get(timer);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = sTimers.putIfAbsent(timer, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the value of a counter
+     */
+    public static long getCount(String counter) {
+        AtomicLong value = sCounters.get(counter);
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * Wraps a stream so the bytes read from it are added to a counter. Returns the stream
+     * itself while metrics are disabled.
+     */
+    public static InputStream countBytes(InputStream in, final String counter) {
+        if (!sEnabled) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count(counter, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    count(counter, read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Forgets every timing and count recorded.
+     */
+    public static void reset() {
+        sTimers.clear();
+        sCounters.clear();
+    }
+
+    /**
+     * Prints a snapshot of every timer (count, mean, p50, p90, p99 and max, in milliseconds)
+     * and every counter.
+     */
+    public static void dump(PrintWriter writer) {
+        writer.println("Metrics" + (sEnabled ? "" : " (disabled)") + ":");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(sTimers).entrySet()) {
+            Histogram histogram = entry.getValue();
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            writer.printf("  %-16s n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f ms%n",
+                    entry.getKey(), count, histogram.getSum() / (double) count / 1e6,
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(90) / 1e6,
+                    histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6);
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(sCounters).entrySet()) {
+            writer.printf("  %-16s %d%n", entry.getKey(), entry.getValue().get());
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.android.news_reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Small HTTP client that every Guardian request goes through, so connections are reused
+ * instead of being torn down after each call.
+ * <p>
+ * The platform {@link HttpURLConnection} already keeps idle sockets in a keep-alive pool, but
+ * only if the caller reads the body to the end, closes the stream and does <em>not</em> call
+ * {@link HttpURLConnection#disconnect()}. HTTPS sockets are only pooled together, and TLS
+ * sessions only resumed, when they come from the same {@link SSLSocketFactory}, so this client
+ * hands one factory to every connection. Concurrent connections to a host are capped.
+ * <p>
+ * A request made for a load with a {@link CancellationToken} is disconnected as soon as the
+ * load is cancelled. The size of the platform's idle pool is a process-wide setting; see
+ * {@link #configureKeepAlive(int)}.
+ */
+public class PooledHttpClient implements HttpTransport {
+
+    // Bytes we are willing to read off an abandoned body to put its socket back in the pool.
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final int mMaxConnectionsPerHost;
+    private final int mConnectTimeout;
+    private final int mReadTimeout;
+    private final boolean mKeepAlive;
+    private final SSLSocketFactory mSslSocketFactory;
+    private final ConcurrentMap<String, Semaphore> mHostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link PooledHttpClient}.
+     *
+     * @param maxConnectionsPerHost is the number of requests allowed in flight to one host
+     * @param connectTimeout        is the connect timeout in milliseconds
+     * @param readTimeout           is the read timeout in milliseconds
+     * @param keepAlive             is false to close every connection after use
+     * @param sslContext            supplies the TLS sessions and sockets, or null for the default
+     */
+    public PooledHttpClient(int maxConnectionsPerHost, int connectTimeout, int readTimeout,
+                            boolean keepAlive, SSLContext sslContext) {
+        mMaxConnectionsPerHost = maxConnectionsPerHost;
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+        mKeepAlive = keepAlive;
+        mSslSocketFactory = sslContext != null
+                ? sslContext.getSocketFactory()
+                : HttpsURLConnection.getDefaultSSLSocketFactory();
+    }
+
+    /**
+     * Turns on the platform's keep-alive pool and sizes it to hold the given number of idle
+     * connections per host. These are process-wide system properties: they apply to every
+     * {@link HttpURLConnection} in the process, not only to this client's, and the platform
+     * reads them once, when it creates its pool. So call this once, when the process starts
+     * and before any connection is opened, not per client.
+     *
+     * @param maxIdleConnections is the number of idle connections kept per host
+     */
+    public static void configureKeepAlive(int maxIdleConnections) {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(maxIdleConnections));
+    }
+
+    @Override
+    public Response get(URL url, Map<String, String> headers) throws IOException {
+        Semaphore permits = permitsFor(url.getHost());
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection to " + url.getHost());
+        }
+
+        HttpURLConnection urlConnection = null;
+        CancellationToken token = CancellationToken.current();
+        Abort abort = null;
+        try {
+            urlConnection = (HttpURLConnection) url.openConnection();
+            if (token != null) {
+                // Cancelling the load disconnects the socket, failing a blocked connect or read.
+                abort = new Abort(urlConnection);
+                token.attach(abort);
+            }
+            if (urlConnection instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) urlConnection).setSSLSocketFactory(mSslSocketFactory);
+            }
+            urlConnection.setReadTimeout(mReadTimeout);
+            urlConnection.setConnectTimeout(mConnectTimeout);
+            urlConnection.setRequestMethod("GET");
+            if (!mKeepAlive) {
+                urlConnection.setRequestProperty("Connection", "close");
+            }
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                urlConnection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            long connectStart = Metrics.start();
+            urlConnection.connect();
+            Metrics.stop(Metrics.HTTP_CONNECT, connectStart);
+            long firstByteStart = Metrics.start();
+            int responseCode = urlConnection.getResponseCode();
+            Metrics.stop(Metrics.HTTP_FIRST_BYTE, firstByteStart);
+            return new Response(urlConnection, permits, responseCode, token, abort);
+        } catch (IOException | RuntimeException e) {
+            if (abort != null) {
+                token.detach(abort);
+            }
+            if (urlConnection != null) {
+                urlConnection.disconnect();
+            }
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Disconnects a connection from another thread, when its load is cancelled.
+    private static class Abort implements Closeable {
+
+        private final HttpURLConnection mConnection;
+        private volatile boolean mAborted;
+
+        Abort(HttpURLConnection connection) {
+            mConnection = connection;
+        }
+
+        @Override
+        public void close() {
+            mAborted = true;
+            mConnection.disconnect();
+        }
+    }
+
+    private Semaphore permitsFor(String host) {
+        Semaphore permits = mHostPermits.get(host);
+        if (permits == null) {
+            Semaphore created = new Semaphore(mMaxConnectionsPerHost, true);
+            permits = mHostPermits.putIfAbsent(host, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+        return permits;
+    }
+
+    /**
+     * An open response. Closing it returns the connection to the keep-alive pool.
+     */
+    public class Response implements HttpTransport.Response {
+
+        private final HttpURLConnection mConnection;
+        private final Semaphore mPermits;
+        private final int mResponseCode;
+        private final CancellationToken mToken;
+        private final Abort mAbort;
+        private InputStream mBody;
+        private boolean mClosed;
+
+        private Response(HttpURLConnection connection, Semaphore permits, int responseCode,
+                         CancellationToken token, Abort abort) {
+            mConnection = connection;
+            mPermits = permits;
+            mResponseCode = responseCode;
+            mToken = token;
+            mAbort = abort;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return mResponseCode;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mConnection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (mBody == null) {
+                mBody = mConnection.getInputStream();
+            }
+            return mBody;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            if (mAbort != null) {
+                mToken.detach(mAbort);
+            }
+            try {
+                if (mAbort != null && mAbort.mAborted) {
+                    // Already disconnected; there is no body left to drain.
+                    return;
+                }
+                if (mKeepAlive) {
+                    // The socket only goes back to the pool once its body is fully consumed.
+                    InputStream body = mBody;
+                    if (body == null) {
+                        body = mResponseCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                                ? mConnection.getErrorStream()
+                                : mConnection.getInputStream();
+                    }
+                    if (body != null) {
+                        drain(body);
+                        body.close();
+                    }
+                } else {
+                    if (mBody != null) {
+                        mBody.close();
+                    }
+                    mConnection.disconnect();
+                }
+            } catch (IOException e) {
+                mConnection.disconnect();
+                throw e;
+            } finally {
+                mPermits.release();
+            }
+        }
+
+        private void drain(InputStream body) throws IOException {
+            byte[] buffer = new byte[4096];
+            int total = 0;
+            int read;
+            while (total < MAX_DRAIN_BYTES && (read = body.read(buffer)) != -1) {
+                total += read;
+            }
+            if (total >= MAX_DRAIN_BYTES) {
+                // Not worth reading the rest; drop this socket instead.
+                mConnection.disconnect();
+            }
+        }
+    }
+}
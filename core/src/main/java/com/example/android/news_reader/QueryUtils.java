@@ -0,0 +1,884 @@
+package com.example.android.news_reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Helper methods related to requesting and receiving response data from The Guardian.
+ */
+public final class QueryUtils {
+
+    private static final String LOG_TAG = QueryUtils.class.getSimpleName();
+    private static final int READ_TIMEOUT = 8000;
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * Requests the default transport lets in flight to one host, and so the idle connections
+     * worth keeping for it
+     */
+    public static final int MAX_CONNECTIONS_PER_HOST = 4;
+
+    // Topics fetched at once, and how long one topic may hold up the merged feed.
+    private static final int MAX_PARALLEL_FETCHES = MAX_CONNECTIONS_PER_HOST;
+    private static final long TOPIC_TIMEOUT = 8000;
+
+    // How often a caller waiting on another's request checks whether its own load was cancelled.
+    private static final long CANCEL_POLL_INTERVAL = 100;
+
+    // Every Guardian request goes through this transport; by default a client that reuses
+    // sockets and TLS sessions.
+    private static volatile HttpTransport sHttpTransport = new PooledHttpClient(
+            MAX_CONNECTIONS_PER_HOST, CONNECT_TIMEOUT, READ_TIMEOUT, true, null);
+
+    // Runs the per-topic requests of a multi-topic feed.
+    private static final ExecutorService sFetchExecutor = Executors.newFixedThreadPool(
+            MAX_PARALLEL_FETCHES, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "article-fetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // The last response seen for each request URL, used to make the next request conditional.
+    // Each holds its parsed articles, so only the most recently used are kept.
+    static final int MAX_CACHED_RESPONSES = 50;
+    private static final Map<String, CachedResponse> sResponses =
+            Collections.synchronizedMap(new RecentResponses(MAX_CACHED_RESPONSES));
+
+    // Failed requests are sent up to three times, waiting up to 0.5 s and then 1 s (or as
+    // long as a Retry-After of up to 5 s asks) in between.
+    private static RetryPolicy sRetryPolicy = new RetryPolicy(3, 500, 4000, 5000, new Random());
+
+    // Five failures in a row stop requests to an endpoint for 30 s.
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long BREAKER_OPEN_DURATION = 30000;
+    private static final ConcurrentMap<String, CircuitBreaker> sCircuitBreakers =
+            new ConcurrentHashMap<>();
+
+    // Quota headers sent with every Guardian response.
+    private static final String RATE_LIMIT_REMAINING_DAY = "X-RateLimit-Remaining-day";
+    private static final String RATE_LIMIT_REMAINING_MINUTE = "X-RateLimit-Remaining-minute";
+    private static final long MINUTE = 60 * 1000;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    // Requests currently in flight, by normalized URL, so identical requests share one.
+    private static final ConcurrentMap<String, SharedRequest> sInFlight =
+            new ConcurrentHashMap<>();
+
+    // A response of one result with the fields the list asks for, for warmUp() to parse.
+    private static final String WARM_UP_RESPONSE = "{\"response\":{\"status\":\"ok\","
+            + "\"results\":[{\"sectionName\":\"Technology\","
+            + "\"webPublicationDate\":\"2018-07-23T09:30:00Z\",\"webTitle\":\"Title\","
+            + "\"webUrl\":\"https://www.theguardian.com/\","
+            + "\"fields\":{\"byline\":\"Writer\",\"thumbnail\":\"\"}}]}}";
+
+    // Every article parsed in this process, searchable without the network.
+    private static final ArticleIndex sIndex = new ArticleIndex();
+
+    // Parsed feeds kept in memory, and for how long they are served without a new fetch.
+    private static final int MEMORY_CACHE_ARTICLES = 1000;
+    private static final long MEMORY_CACHE_TTL = 5 * 60 * 1000;
+    private static final ArticleMemoryCache sMemoryCache =
+            new ArticleMemoryCache(MEMORY_CACHE_ARTICLES, MEMORY_CACHE_TTL);
+
+    /**
+     * Create a private constructor because no one should ever create a {@link QueryUtils} object.
+     * This class is only meant to hold static variables and methods, which can be accessed
+     * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
+     */
+    private QueryUtils() {
+    }
+
+    /**
+     * Return a list of {@link Article} objects that has been built up from
+     * parsing the given JSON response stream. Articles are decoded one at a time as the
+     * bytes arrive, so the full response is never held in memory as a String or a tree.
+     */
+    static List<Article> extractArticlesFromStream(InputStream inputStream) {
+        // Empty ArrayList that we can start adding articles to
+        List<Article> articles = new ArrayList<>();
+
+        // If there's a problem with the way the JSON is formatted, the reader throws. Catch
+        // the exception so the app doesn't crash, keep whatever was parsed before the problem,
+        // and print the error message to the logs.
+        try {
+            readArticles(inputStream, articles);
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem parsing the article JSON results", e);
+        }
+        sIndex.addAll(articles);
+        return articles;
+    }
+
+    // Parses the response stream into the list, without adding the articles to the index. A
+    // body that breaks off or is malformed part way through throws, so that what was read of
+    // it is never taken for the whole response.
+    // Returns the number of pages the response says the search has, or -1.
+    private static int readArticles(InputStream inputStream, List<Article> articles)
+            throws IOException {
+        long parseStart = Metrics.start();
+        ArticleJsonReader reader = new ArticleJsonReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                articles.add(reader.next());
+            }
+            return reader.getPages();
+        } catch (IllegalStateException e) {
+            throw new IOException("Malformed response body", e);
+        } finally {
+            Metrics.stop(Metrics.PARSE, parseStart);
+            Metrics.count(Metrics.ARTICLES_PARSED, articles.size());
+        }
+    }
+
+    /**
+     * Returns the index of every article parsed in this process.
+     */
+    public static ArticleIndex getIndex() {
+        return sIndex;
+    }
+
+    /**
+     * Returns the in-memory cache of parsed feeds shared by every loader.
+     */
+    public static ArticleMemoryCache getMemoryCache() {
+        return sMemoryCache;
+    }
+
+    /**
+     * Returns the transport every request goes through, for the app's other downloads (such
+     * as images) to share its connection pool.
+     */
+    public static HttpTransport getHttpTransport() {
+        return sHttpTransport;
+    }
+
+    /**
+     * Replaces the transport used for every request, for example to change the per-host
+     * limits of the {@link PooledHttpClient} or to send the requests some other way.
+     */
+    public static void setHttpTransport(HttpTransport httpTransport) {
+        sHttpTransport = httpTransport;
+    }
+
+    /**
+     * Gets the fetch path ready ahead of the first request: loading this class builds the HTTP
+     * client and its TLS socket factory, and one result is run through the parser so its
+     * classes are loaded too. Nothing is sent and nothing is indexed. Call it off the main
+     * thread, once the first frame is up.
+     */
+    public static void warmUp() {
+        ArticleJsonReader reader = new ArticleJsonReader(
+                new ByteArrayInputStream(WARM_UP_RESPONSE.getBytes(Charset.forName("UTF-8"))));
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            reader.close();
+        } catch (IOException | IllegalStateException e) {
+            Logging.e(LOG_TAG, "Problem warming up the parser.", e);
+        }
+    }
+
+    /**
+     * Forgets the last response fetched for the given request URL, so the next request for it
+     * is sent without validators.
+     */
+    public static void removeCachedResponse(String requestUrl) {
+        sResponses.remove(requestUrl);
+    }
+
+    /**
+     * Returns the last response fetched for the given request URL, with its validators, or
+     * null if the URL has not been fetched in this process.
+     */
+    public static CachedResponse getCachedResponse(String requestUrl) {
+        return sResponses.get(requestUrl);
+    }
+
+    /**
+     * Remembers a response (for example one restored from disk) so that the next fetch of its
+     * URL is sent as a conditional request, and a 304 answer reuses its articles.
+     */
+    public static void putCachedResponse(CachedResponse response) {
+        if (response.getETag() != null || response.getLastModified() != null) {
+            sResponses.put(response.getUrl(), response);
+        }
+    }
+
+
+    /**
+     * Normalizes a request URL, or each line of a merged feed's key, so that the same request
+     * gives the same key however its query parameters were ordered.
+     */
+    public static String normalizeRequestUrl(String requestUrl) {
+        StringBuilder key = new StringBuilder(requestUrl.length());
+        for (String url : requestUrl.split("\n")) {
+            if (url.isEmpty()) {
+                continue;
+            }
+            int query = url.indexOf('?');
+            String base = query < 0 ? url : url.substring(0, query);
+            int authorityEnd = base.indexOf('/', base.indexOf("://") + 3);
+            if (authorityEnd < 0) {
+                authorityEnd = base.length();
+            }
+            // Scheme and host are case-insensitive, the path is not.
+            key.append(base.substring(0, authorityEnd).toLowerCase())
+                    .append(base.substring(authorityEnd));
+            if (query >= 0) {
+                List<String> params = new ArrayList<>();
+                for (String param : url.substring(query + 1).split("&")) {
+                    if (!param.isEmpty()) {
+                        params.add(param);
+                    }
+                }
+                Collections.sort(params);
+                char separator = '?';
+                for (String param : params) {
+                    key.append(separator).append(param);
+                    separator = '&';
+                }
+            }
+            key.append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Query The Guardian repository and return a list of {@link Article} objects.
+     * If the server answers that nothing changed since the last fetch of the same URL, the
+     * list parsed last time is returned as is.
+     * <p>
+     * Callers asking for the same URL while a request for it is in flight wait for that
+     * request and share its result, instead of opening a connection of their own.
+     */
+    public static List<Article> fetchArticleData(String requestUrl) {
+        return fetchArticleData(requestUrl, true);
+    }
+
+    /**
+     * Query The Guardian repository like {@link #fetchArticleData(String)}.
+     *
+     * @param keepInMemory is false for one-off bulk fetches, whose articles are neither added
+     *                     to the search index nor kept to make the next request conditional
+     */
+    public static List<Article> fetchArticleData(final String requestUrl,
+                                                 final boolean keepInMemory) {
+        String key = normalizeRequestUrl(requestUrl);
+        CancellationToken token = CancellationToken.current();
+        SharedRequest request = new SharedRequest(requestUrl, keepInMemory);
+        SharedRequest inFlight;
+        while (true) {
+            inFlight = sInFlight.putIfAbsent(key, request);
+            if (inFlight == null) {
+                inFlight = request;
+                inFlight.join();
+                break;
+            }
+            if (inFlight.join()) {
+                break;
+            }
+            // Everyone waiting on that request gave up and it is being cancelled; replace it.
+            if (sInFlight.replace(key, inFlight, request)) {
+                inFlight = request;
+                inFlight.join();
+                break;
+            }
+        }
+
+        // If this caller's load is cancelled, it stops waiting; the request itself is only
+        // cancelled once nobody is waiting for it.
+        Closeable waiter = inFlight.waiter();
+        try {
+            if (token != null) {
+                token.attach(waiter);
+            }
+        } catch (InterruptedIOException e) {
+            // Already cancelled; if this caller was to run the request, nobody will.
+            sInFlight.remove(key, request);
+            return null;
+        }
+        try {
+            if (inFlight == request) {
+                // Nobody else is fetching this URL, so run the request on this thread.
+                try {
+                    request.run();
+                } finally {
+                    sInFlight.remove(key, request);
+                }
+            }
+            List<Article> articles = awaitUnlessCancelled(inFlight.mTask, token);
+            return token != null && token.isCancelled() ? null : articles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Logging.e(LOG_TAG, "Problem making the HTTP request.", e.getCause());
+            return null;
+        } finally {
+            if (token != null) {
+                token.detach(waiter);
+            }
+        }
+    }
+
+    // Waits for a request another caller is making, giving up if this caller's own load is
+    // cancelled first.
+    private static List<Article> awaitUnlessCancelled(FutureTask<List<Article>> request,
+                                                      CancellationToken token)
+            throws InterruptedException, ExecutionException {
+        if (token == null) {
+            return request.get();
+        }
+        while (true) {
+            try {
+                return request.get(CANCEL_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (token.isCancelled()) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * One upstream request and the callers waiting for it. It runs under a token of its own
+     * rather than the token of the caller that happens to run it, so one caller's load being
+     * cancelled does not disconnect it from under the others; the request is cancelled only
+     * once every caller has left.
+     */
+    private static final class SharedRequest {
+
+        final FutureTask<List<Article>> mTask;
+        private final CancellationToken mToken = new CancellationToken();
+
+        // Callers still waiting for the result. Guarded by this.
+        private int mWaiters;
+
+        SharedRequest(final String requestUrl, final boolean keepInMemory) {
+            mTask = new FutureTask<>(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() {
+                    return fetchUncoalesced(requestUrl, keepInMemory);
+                }
+            });
+        }
+
+        // Adds a caller, unless every caller has already left and the request is being
+        // cancelled.
+        synchronized boolean join() {
+            if (mToken.isCancelled()) {
+                return false;
+            }
+            mWaiters++;
+            return true;
+        }
+
+        // Returns what a caller attaches to its own token: closing it means the caller left.
+        Closeable waiter() {
+            return new Closeable() {
+                @Override
+                public void close() {
+                    leave();
+                }
+            };
+        }
+
+        private void leave() {
+            synchronized (this) {
+                if (--mWaiters > 0 || mTask.isDone()) {
+                    return;
+                }
+            }
+            mToken.cancel();
+        }
+
+        void run() {
+            CancellationToken previous = CancellationToken.setCurrent(mToken);
+            try {
+                mTask.run();
+            } finally {
+                CancellationToken.setCurrent(previous);
+            }
+        }
+    }
+
+    // Performs one request for the URL, whoever else is asking for it, sending it again with
+    // a backoff if it fails in a way that may clear up.
+    private static List<Article> fetchUncoalesced(String requestUrl, final boolean keepInMemory) {
+        return fetchWithRetries(requestUrl, null, new Attempt<List<Article>>() {
+            @Override
+            public List<Article> run(URL url, CircuitBreaker breaker) throws IOException {
+                // Perform HTTP request to the URL and parse the JSON response as it streams in
+                return makeHttpRequest(url, breaker, keepInMemory);
+            }
+        });
+    }
+
+    /**
+     * Fetches one page of search results for a bulk crawl. Like
+     * {@link #fetchArticleData(String, boolean)} without keeping anything in memory, but the
+     * request is not shared with other callers, every attempt (retries included) first takes
+     * a permit from the rate limiter, and the page count of the search is returned with the
+     * articles.
+     *
+     * @param requestUrl  is a {@link FeedRequest#searchUrl} URL
+     * @param rateLimiter is shared by every request of the crawl
+     * @return the page, or null if the request failed
+     */
+    public static SearchPage fetchSearchPage(String requestUrl, RateLimiter rateLimiter) {
+        return fetchWithRetries(requestUrl, rateLimiter, new Attempt<SearchPage>() {
+            @Override
+            public SearchPage run(URL url, CircuitBreaker breaker) throws IOException {
+                return makeSearchPageRequest(url, breaker);
+            }
+        });
+    }
+
+    // One try at a request, made again by fetchWithRetries() if it fails in a way that may
+    // clear up.
+    private interface Attempt<T> {
+        T run(URL url, CircuitBreaker breaker) throws IOException;
+    }
+
+    // Makes the request, sending it again with a backoff if it fails in a way that may clear
+    // up. If there is a rate limiter, every attempt waits for a permit first.
+    private static <T> T fetchWithRetries(String requestUrl, RateLimiter rateLimiter,
+                                          Attempt<T> request) {
+        // Create URL object
+        URL url = createUrl(requestUrl);
+        if (url == null) {
+            return null;
+        }
+        CircuitBreaker breaker = circuitBreakerFor(url);
+        RetryPolicy retryPolicy = sRetryPolicy;
+
+        for (int attempt = 0; ; attempt++) {
+            if (rateLimiter != null) {
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (!breaker.allowRequest(now)) {
+                Logging.e(LOG_TAG, "Skipping the request, The Guardian is failing or rate limited.");
+                return null;
+            }
+
+            long delay;
+            try {
+                T result = request.run(url, breaker);
+                breaker.onSuccess();
+                return result;
+            } catch (HttpStatusException e) {
+                Logging.e(LOG_TAG, "Error response code: " + e.getResponseCode());
+                if (!e.isRetryable()) {
+                    // The server is up, it just won't answer this request.
+                    breaker.onSuccess();
+                    return null;
+                }
+                breaker.onFailure(now);
+                long retryAfter = RetryPolicy.parseRetryAfter(e.getRetryAfter(), now);
+                if (retryAfter > 0) {
+                    // Nobody gets through before the server said we may come back.
+                    breaker.openUntil(now + retryAfter);
+                }
+                if (retryAfter > retryPolicy.getMaxRetryAfter()) {
+                    return null;
+                }
+                delay = Math.max(retryPolicy.backoff(attempt), retryAfter);
+            } catch (IOException e) {
+                if (CancellationToken.isCurrentCancelled()) {
+                    // We closed the connection ourselves; the server is not to blame. If this
+                    // was the breaker's trial request, hand the trial on.
+                    breaker.releaseTrial();
+                    return null;
+                }
+                Logging.e(LOG_TAG, "Problem making the HTTP request.", e);
+                breaker.onFailure(now);
+                delay = retryPolicy.backoff(attempt);
+            } catch (RuntimeException e) {
+                if (CancellationToken.isCurrentCancelled()) {
+                    breaker.releaseTrial();
+                    return null;
+                }
+                // A response we could not make sense of, such as a malformed number. It will
+                // not read any better a second time, so it is not retried, but it is reported
+                // so that a trial request never leaves the breaker waiting for good.
+                Logging.e(LOG_TAG, "Problem reading the HTTP response.", e);
+                breaker.onFailure(now);
+                return null;
+            }
+
+            if (attempt + 1 >= retryPolicy.getMaxAttempts()) {
+                return null;
+            }
+            try {
+                CancellationToken token = CancellationToken.current();
+                if (token == null) {
+                    Thread.sleep(delay);
+                } else if (!token.sleep(delay)) {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                // The caller gave up on this request (for example the topic timed out).
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the policy failed requests are retried with.
+     */
+    public static void setRetryPolicy(RetryPolicy retryPolicy) {
+        sRetryPolicy = retryPolicy;
+    }
+
+    /**
+     * Closes every circuit breaker, forgetting past failures and rate limits.
+     */
+    public static void resetCircuitBreakers() {
+        sCircuitBreakers.clear();
+    }
+
+    /**
+     * Returns the circuit breaker requests to the URL go through, for tests.
+     */
+    static CircuitBreaker getCircuitBreaker(String requestUrl) throws MalformedURLException {
+        return circuitBreakerFor(new URL(requestUrl));
+    }
+
+    // One breaker per endpoint: host and path, whatever the query.
+    private static CircuitBreaker circuitBreakerFor(URL url) {
+        return circuitBreakerFor(url.getHost() + url.getPath());
+    }
+
+    private static CircuitBreaker circuitBreakerFor(String endpoint) {
+        CircuitBreaker breaker = sCircuitBreakers.get(endpoint);
+        if (breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION);
+            breaker = sCircuitBreakers.putIfAbsent(endpoint, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    // Opens the breaker until the next window if the response says the quota is used up.
+    private static void checkRateLimit(HttpTransport.Response response, CircuitBreaker breaker) {
+        long now = System.currentTimeMillis();
+        if ("0".equals(response.getHeader(RATE_LIMIT_REMAINING_DAY))) {
+            Logging.e(LOG_TAG, "Daily API quota used up.");
+            breaker.openUntil((now / DAY + 1) * DAY);
+        } else if ("0".equals(response.getHeader(RATE_LIMIT_REMAINING_MINUTE))) {
+            breaker.openUntil((now / MINUTE + 1) * MINUTE);
+        }
+    }
+
+
+    /**
+     * Query The Guardian repository once per request URL, all at the same time, and return a
+     * single list of {@link Article} objects merged by publication date with duplicates
+     * removed. A request that fails or takes longer than the per-topic timeout is left out,
+     * so the feed only fails if every request does.
+     *
+     * @param requestUrls  one URL per followed topic or section
+     * @param newestFirst  true if the lists (and the merged result) are ordered newest first
+     */
+    public static List<Article> fetchArticleData(List<String> requestUrls, boolean newestFirst) {
+        if (requestUrls.size() == 1) {
+            return fetchArticleData(requestUrls.get(0));
+        }
+        List<List<Article>> results = fetchEach(requestUrls, true);
+        if (results == null) {
+            return null;
+        }
+        List<List<Article>> lists = new ArrayList<>(results.size());
+        for (List<Article> articles : results) {
+            if (articles != null) {
+                lists.add(articles);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        return mergeByDate(lists, newestFirst);
+    }
+
+    /**
+     * Query The Guardian repository once per request URL, all at the same time, and return
+     * the results unmerged, for callers that need to know which URL brought what.
+     *
+     * @param requestUrls  one URL per followed topic or section
+     * @param keepInMemory is false for one-off requests, as for
+     *                     {@link #fetchArticleData(String, boolean)}
+     * @return one entry per URL, in the same order, null where that request failed or timed
+     * out; or null altogether if the load was cancelled or interrupted
+     */
+    public static List<List<Article>> fetchEach(List<String> requestUrls,
+                                                final boolean keepInMemory) {
+        List<List<Article>> lists = new ArrayList<>(requestUrls.size());
+        if (requestUrls.size() == 1) {
+            lists.add(fetchArticleData(requestUrls.get(0), keepInMemory));
+            return CancellationToken.isCurrentCancelled() ? null : lists;
+        }
+
+        // The topics are fetched on other threads, but cancelled along with this load.
+        final CancellationToken token = CancellationToken.current();
+        List<Callable<List<Article>>> fetches = new ArrayList<>(requestUrls.size());
+        for (final String requestUrl : requestUrls) {
+            fetches.add(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() {
+                    CancellationToken previous = CancellationToken.setCurrent(token);
+                    try {
+                        return fetchArticleData(requestUrl, keepInMemory);
+                    } finally {
+                        CancellationToken.setCurrent(previous);
+                    }
+                }
+            });
+        }
+
+        try {
+            // Anything still running when the timeout expires is cancelled.
+            for (Future<List<Article>> future
+                    : sFetchExecutor.invokeAll(fetches, TOPIC_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                List<Article> articles = null;
+                try {
+                    articles = future.get();
+                } catch (CancellationException e) {
+                    Logging.e(LOG_TAG, "A topic took too long and was left out of the feed.");
+                } catch (ExecutionException e) {
+                    Logging.e(LOG_TAG, "Problem fetching a topic.", e);
+                }
+                lists.add(articles);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        // A cancelled load would otherwise be stored as a feed with topics missing.
+        return CancellationToken.isCurrentCancelled() ? null : lists;
+    }
+
+    /**
+     * Merges lists that are each already ordered by publication date into one ordered list,
+     * dropping any article (by web URL) that was already taken from another list. Runs in a
+     * single pass over the input.
+     */
+    static List<Article> mergeByDate(List<List<Article>> lists, final boolean newestFirst) {
+        int total = 0;
+        for (List<Article> list : lists) {
+            total += list.size();
+        }
+        List<Article> merged = new ArrayList<>(total);
+        Set<String> seenUrls = new HashSet<>(total * 2);
+
+        // Position in each list, ordered by the article each one points at.
+        final int[] positions = new int[lists.size()];
+        final List<List<Article>> sources = lists;
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, lists.size()),
+                new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        long timeA = sources.get(a).get(positions[a]).getPublishedAt();
+                        long timeB = sources.get(b).get(positions[b]).getPublishedAt();
+                        int order = timeA < timeB ? -1 : (timeA == timeB ? 0 : 1);
+                        return newestFirst ? -order : order;
+                    }
+                });
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                heads.add(i);
+            }
+        }
+
+        while (!heads.isEmpty()) {
+            int list = heads.poll();
+            Article article = lists.get(list).get(positions[list]);
+            if (seenUrls.add(article.getmWebUrl())) {
+                merged.add(article);
+            }
+            if (++positions[list] < lists.get(list).size()) {
+                heads.add(list);
+            }
+        }
+        return merged;
+    }
+
+    // Makes one request for a page of a bulk crawl, without validators: every page is only
+    // fetched once.
+    private static SearchPage makeSearchPageRequest(URL url, CircuitBreaker breaker)
+            throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip");
+        HttpTransport.Response response = sHttpTransport.get(url, headers);
+        try {
+            checkRateLimit(response, breaker);
+            int responseCode = response.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new HttpStatusException(responseCode, response.getHeader("Retry-After"));
+            }
+            List<Article> articles = new ArrayList<>();
+            int pages = readArticles(openBody(response), articles);
+            throwIfCancelled();
+            return new SearchPage(articles, pages);
+        } finally {
+            response.close();
+        }
+    }
+
+    // Returns the body of a response as it streams in, counted and decompressed.
+    private static InputStream openBody(HttpTransport.Response response) throws IOException {
+        InputStream inputStream = Metrics.countBytes(response.getBody(), Metrics.HTTP_BYTES);
+        if ("gzip".equalsIgnoreCase(response.getHeader("Content-Encoding"))) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
+    private static void throwIfCancelled() throws InterruptedIOException {
+        if (CancellationToken.isCurrentCancelled()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+    }
+
+    // Returns new URL object from the given string URL.
+    private static URL createUrl(String stringUrl) {
+        URL url = null;
+        try {
+            url = new URL(stringUrl);
+        } catch (MalformedURLException e) {
+            Logging.e(LOG_TAG, "Problem building the URL ", e);
+        }
+        return url;
+    }
+
+
+    // Make an HTTP request to the given URL and return the list of articles parsed from
+    // the response body, or null if the request failed.
+    private static List<Article> makeHttpRequest(URL url, CircuitBreaker breaker,
+                                                 boolean keepInMemory) throws IOException {
+        List<Article> articles;
+
+        String requestUrl = url.toString();
+        CachedResponse cached = sResponses.get(requestUrl);
+
+        // Ask for a compressed body; we decompress it ourselves as it streams in.
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip");
+        // Send back the validators from the last response so an unchanged feed costs
+        // a 304 with no body instead of the whole result set.
+        if (cached != null) {
+            if (cached.getETag() != null) {
+                headers.put("If-None-Match", cached.getETag());
+            }
+            if (cached.getLastModified() != null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        HttpTransport.Response response = null;
+        try {
+            response = sHttpTransport.get(url, headers);
+            checkRateLimit(response, breaker);
+
+            int responseCode = response.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                // Nothing changed since the last fetch, so reuse the last parsed list.
+                articles = cached.getArticles();
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                // If the request was good (response code 200),
+                // then parse the response straight off the input stream.
+                InputStream inputStream = openBody(response);
+                // A body cut off part way through throws here, so it is retried like any
+                // other failed request rather than cached as if it were complete.
+                articles = new ArrayList<>();
+                readArticles(inputStream, articles);
+                throwIfCancelled();
+                if (!keepInMemory) {
+                    return articles;
+                }
+                sIndex.addAll(articles);
+
+                CachedResponse parsed = new CachedResponse(requestUrl,
+                        response.getHeader("ETag"), response.getHeader("Last-Modified"), articles);
+                if (parsed.getETag() != null || parsed.getLastModified() != null) {
+                    sResponses.put(requestUrl, parsed);
+                } else {
+                    sResponses.remove(requestUrl);
+                }
+            } else {
+                throw new HttpStatusException(responseCode, response.getHeader("Retry-After"));
+            }
+        } finally {
+            if (response != null) {
+                // Closing the response hands the connection back to the keep-alive pool
+                // rather than disconnecting it. That could throw an IOException, which is why
+                // the makeHttpRequest method signature specifies than an IOException
+                // could be thrown.
+                response.close();
+            }
+        }
+        return articles;
+    }
+
+    // Least recently used first, dropping the eldest entry past the bound. Used synchronized.
+    private static final class RecentResponses extends LinkedHashMap<String, CachedResponse> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int mMaxEntries;
+
+        RecentResponses(int maxEntries) {
+            super(16, 0.75f, true);
+            mMaxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > mMaxEntries;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.android.news_reader;
+
+/**
+ * Spaces out requests shared by many threads so that together they stay under a fixed rate.
+ * Each caller reserves the next free slot and sleeps until it comes up, so the requests leave
+ * evenly spaced rather than in bursts.
+ */
+public class RateLimiter {
+
+    private final long mIntervalNanos;
+
+    // When the next request may go out, on the System.nanoTime() clock.
+    private long mNextFree;
+
+    /**
+     * Constructs a new {@link RateLimiter}.
+     *
+     * @param permitsPerSecond is the most requests allowed per second, across all threads
+     */
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        mIntervalNanos = (long) (1e9 / permitsPerSecond);
+        mNextFree = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the caller may send its request.
+     *
+     * @throws InterruptedException if the thread is interrupted while it waits
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve(System.nanoTime());
+        if (wait > 0) {
+            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+        }
+    }
+
+    // Takes the next free slot and returns how many nanoseconds away it is.
+    private synchronized long reserve(long now) {
+        // A slot left unused in the past is not saved up for a burst later.
+        long slot = Math.max(mNextFree, now);
+        mNextFree = slot + mIntervalNanos;
+        return slot - now;
+    }
+}
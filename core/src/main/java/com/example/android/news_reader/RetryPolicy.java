@@ -0,0 +1,97 @@
+package com.example.android.news_reader;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * How often, and how long apart, a failed GET is sent again.
+ * <p>
+ * Delays grow exponentially from {@code baseDelay} up to {@code maxDelay}, and each one is
+ * drawn at random below that bound ("full jitter"), so clients that failed together don't
+ * all come back at the same moment.
+ */
+public class RetryPolicy {
+
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final int mMaxAttempts;
+    private final long mBaseDelay;
+    private final long mMaxDelay;
+    private final long mMaxRetryAfter;
+    private final Random mRandom;
+
+    /**
+     * Constructs a new {@link RetryPolicy}.
+     *
+     * @param maxAttempts   is the most times a request is sent, the first one included
+     * @param baseDelay     is the bound of the first delay, in milliseconds
+     * @param maxDelay      is the largest bound any delay can reach, in milliseconds
+     * @param maxRetryAfter is the longest Retry-After the caller waits for; a longer one fails
+     *                      the request straight away, in milliseconds
+     * @param random        is the source of the jitter
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, long maxRetryAfter,
+                       Random random) {
+        mMaxAttempts = maxAttempts;
+        mBaseDelay = baseDelay;
+        mMaxDelay = maxDelay;
+        mMaxRetryAfter = maxRetryAfter;
+        mRandom = random;
+    }
+
+    /**
+     * Returns the most times a request is sent, the first one included
+     */
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Returns the longest Retry-After worth waiting for, in milliseconds
+     */
+    public long getMaxRetryAfter() {
+        return mMaxRetryAfter;
+    }
+
+    /**
+     * Returns how long to wait before sending a request again.
+     *
+     * @param attempt is the number of the attempt that just failed, starting from 0
+     */
+    public long backoff(int attempt) {
+        long bound = mBaseDelay << Math.min(attempt, 20);
+        if (bound <= 0 || bound > mMaxDelay) {
+            bound = mMaxDelay;
+        }
+        synchronized (mRandom) {
+            return (long) (mRandom.nextDouble() * bound);
+        }
+    }
+
+    /**
+     * Returns how long a Retry-After header asks the client to wait, in milliseconds.
+     *
+     * @param retryAfter is the header, either a number of seconds or an HTTP date
+     * @param now        is the current time, in milliseconds since the epoch
+     * @return the wait, or 0 if the header is missing or unreadable
+     */
+    public static long parseRetryAfter(String retryAfter, long now) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be a date.
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+            return Math.max(0, format.parse(value).getTime() - now);
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.android.news_reader;
+
+import java.util.List;
+
+/**
+ * One page of Guardian search results together with the number of pages the search has in
+ * all, so a crawl knows where to stop without asking for a page past the last one.
+ */
+public class SearchPage {
+
+    private final List<Article> mArticles;
+    private final int mPages;
+
+    /**
+     * Constructs a new {@link SearchPage}.
+     *
+     * @param articles is the list of articles parsed from the response body
+     * @param pages    is the "pages" count of the response, or -1 if it had none
+     */
+    public SearchPage(List<Article> articles, int pages) {
+        mArticles = articles;
+        mPages = pages;
+    }
+
+    /**
+     * Returns the articles on this page
+     */
+    public List<Article> getArticles() {
+        return mArticles;
+    }
+
+    /**
+     * Returns the number of pages the search has in all, or -1 if the response did not say
+     */
+    public int getPages() {
+        return mPages;
+    }
+
+    /**
+     * Returns true if there is nothing to fetch after this page. Without a page count, a page
+     * shorter than asked for is taken to be the last.
+     *
+     * @param page     is the number of this page, from 1
+     * @param pageSize is the number of results that were asked for
+     */
+    public boolean isLastPage(int page, int pageSize) {
+        return mPages >= 0 ? page >= mPages : mArticles.size() < pageSize;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.news_reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The first screen of the feed as it was last shown, kept in an {@link ArticleSnapshot} file of
+ * its own so the next launch can show it before anything else is set up.
+ * <p>
+ * Unlike {@link ArticleCache} it is not keyed by request, so reading it needs neither the
+ * user's preferences nor {@link QueryUtils}, whose first use builds the HTTP client.
+ */
+public final class StartupSnapshot {
+
+    private static final String LOG_TAG = StartupSnapshot.class.getSimpleName();
+
+    /**
+     * Name of the file in the cache directory
+     */
+    public static final String FILE_NAME = "startup.snapshot";
+
+    /**
+     * Rows kept: about a screen and a half, enough to fill the first frame.
+     */
+    public static final int MAX_ARTICLES = 30;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StartupSnapshot} object.
+     */
+    private StartupSnapshot() {
+    }
+
+    /**
+     * Returns the articles last shown, or null if there are none or the file is unreadable.
+     *
+     * @param cacheDir the app's cache directory
+     */
+    public static List<Article> read(File cacheDir) {
+        File file = new File(cacheDir, FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            ArticleSnapshot snapshot = ArticleSnapshot.open(file);
+            return snapshot.isEmpty() ? null : snapshot;
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem reading the startup snapshot.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the articles last shown with the first {@link #MAX_ARTICLES} of the given ones.
+     *
+     * @param cacheDir the app's cache directory
+     * @param articles the feed as it is about to be shown
+     */
+    public static void write(File cacheDir, List<Article> articles) {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            Logging.e(LOG_TAG, "Could not create " + cacheDir);
+            return;
+        }
+        if (articles.size() > MAX_ARTICLES) {
+            articles = new ArrayList<>(articles.subList(0, MAX_ARTICLES));
+        }
+
+        // A launch reading the file while it is written must see the old one or the new one.
+        File temp = new File(cacheDir, FILE_NAME + ".tmp");
+        try {
+            ArticleSnapshot.write(temp, articles);
+            if (!temp.renameTo(new File(cacheDir, FILE_NAME))) {
+                Logging.e(LOG_TAG, "Could not move the startup snapshot into place.");
+            }
+        } catch (IOException e) {
+            Logging.e(LOG_TAG, "Problem writing the startup snapshot.", e);
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                Logging.w(LOG_TAG, "Could not delete " + temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.android.news_reader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide pool for the few strings many articles share (section names, contributors),
+ * so a list holds one "World news" instead of one per article.
+ * <p>
+ * Nothing is ever removed, so the pool is capped: once it is full, new strings are handed
+ * back as they are and only the ones already pooled are shared. Only pass it values from a
+ * small set; anything that grows with the number of articles does not belong here.
+ */
+public final class StringPool {
+
+    /**
+     * Most strings the pool holds
+     */
+    static final int MAX_SIZE = 2048;
+
+    private static final ConcurrentMap<String, String> sPool = new ConcurrentHashMap<>();
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StringPool} object.
+     */
+    private StringPool() {
+    }
+
+    /**
+     * Returns the pooled instance equal to the given string, adding it if it is new and the
+     * pool is not full.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = sPool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        // The size is only an estimate while other threads add to it; a few over is fine.
+        if (sPool.size() >= MAX_SIZE) {
+            return value;
+        }
+        pooled = sPool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Empties the pool, for tests.
+     */
+    static void clear() {
+        sPool.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.android.news_reader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the heap retained by 10,000 parsed articles, as {@link Article} holds them now and
+ * as five separate Strings per article (the previous representation, where every article kept
+ * its own copy of the section, contributor and timestamp text).
+ */
+public class ArticleFootprintTest {
+
+    private static final int ARTICLES = 10000;
+
+    @Test
+    public void compactArticles_retainLessHeap() throws IOException {
+        String json = GuardianResponses.search(ARTICLES);
+
+        long before = usedHeap();
+        List<StringArticle> strings = parseAsStrings(json);
+        long stringBytes = usedHeap() - before;
+        assertEquals(ARTICLES, strings.size());
+        strings = null;
+
+        byte[] body = GuardianResponses.searchBytes(ARTICLES);
+        json = null;
+        before = usedHeap();
+        List<Article> compact = parseCompact(body);
+        long compactBytes = usedHeap() - before;
+        assertEquals(ARTICLES, compact.size());
+
+        System.out.printf("%d articles: %d KB as Strings, %d KB compact%n",
+                ARTICLES, stringBytes / 1024, compactBytes / 1024);
+
+        assertTrue(compactBytes < stringBytes);
+    }
+
+    // Parsed without QueryUtils, so the search index it feeds is not counted.
+    private static List<Article> parseCompact(byte[] body) throws IOException {
+        List<Article> articles = new ArrayList<>();
+        ArticleJsonReader reader = new ArticleJsonReader(new ByteArrayInputStream(body));
+        while (reader.hasNext()) {
+            articles.add(reader.next());
+        }
+        reader.close();
+        return articles;
+    }
+
+    private static List<StringArticle> parseAsStrings(String json) {
+        List<StringArticle> articles = new ArrayList<>();
+        JSONArray results = new JSONObject(json).getJSONObject("response").getJSONArray("results");
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String author = result.optJSONArray("tags").getJSONObject(0).optString("webTitle");
+            articles.add(new StringArticle(result.optString("webTitle"),
+                    result.optString("sectionName"), result.optString("webPublicationDate"),
+                    author, result.optString("webUrl")));
+        }
+        return articles;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few rounds, so garbage from the previous step is really gone.
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    // The article as it was held before: every field its own String.
+    private static class StringArticle {
+        final String mTitle;
+        final String mSection;
+        final String mPubDate;
+        final String mContributor;
+        final String mWebUrl;
+        final String mDisplayDate;
+
+        StringArticle(String title, String section, String pubDate, String contributor,
+                      String webUrl) {
+            mTitle = title;
+            mSection = section;
+            mPubDate = pubDate;
+            mContributor = contributor;
+            mWebUrl = webUrl;
+            mDisplayDate = pubDate.substring(0, 10);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ArticleIndex} lookups, and reports build time, query latency and heap footprint
+ * over 50,000 synthetic articles.
+ */
+public class ArticleIndexTest {
+
+    private static final int ARTICLES = 50000;
+    private static final int QUERIES = 10000;
+    private static final int PAGE_SIZE = 30;
+
+    private static final String[] WORDS = {
+            "bitcoin", "ethereum", "markets", "ledger", "election", "climate", "football",
+            "budget", "privacy", "energy", "housing", "science", "trade", "vaccine", "music",
+            "film", "startup", "court", "union", "rail", "space", "ocean", "farming", "banks",
+            "tax", "schools", "drought", "robots", "chess", "opera"};
+    private static final String[] SECTIONS = {
+            "World news", "Technology", "Business", "Politics", "Sport", "Culture"};
+
+    @Test
+    public void search_matchesEveryWordCaseInsensitively() {
+        ArticleIndex index = new ArticleIndex();
+        index.addAll(Arrays.asList(
+                article(1, "Bitcoin tumbles as markets wobble", "Business", "Jane Doe", 3),
+                article(2, "Ethereum upgrade ships", "Technology", "John Roe", 2),
+                article(3, "Why bitcoin miners love cheap energy", "Technology", "Jane Doe", 1)));
+
+        assertEquals(Arrays.asList(url(1), url(3)), urls(index.search("BITCOIN", 10)));
+        assertEquals(Arrays.asList(url(3)), urls(index.search("bitcoin technology", 10)));
+        assertEquals(Arrays.asList(url(1), url(3)), urls(index.search("jane", 10)));
+        assertTrue(index.search("bitcoin football", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void search_returnsTheNewestMatchesFirst() {
+        ArticleIndex index = new ArticleIndex();
+        for (int i = 0; i < 20; i++) {
+            index.add(article(i, "Markets daily " + i, "Business", "Desk", i));
+        }
+
+        List<Article> newest = index.search("markets", 3);
+
+        assertEquals(Arrays.asList(url(19), url(18), url(17)), urls(newest));
+    }
+
+    @Test
+    public void add_replacesAnArticleWithTheSameUrl() {
+        ArticleIndex index = new ArticleIndex();
+        index.add(article(1, "Bitcoin rallies", "Business", "Desk", 1));
+        index.add(article(1, "Ethereum rallies", "Business", "Desk", 1));
+
+        assertEquals(1, index.size());
+        assertTrue(index.search("bitcoin", 10).isEmpty());
+        assertEquals(Arrays.asList(url(1)), urls(index.search("ethereum", 10)));
+    }
+
+    @Test
+    public void benchmark_fiftyThousandArticles() {
+        Random random = new Random(42);
+        List<Article> articles = new ArrayList<>(ARTICLES);
+        for (int i = 0; i < ARTICLES; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 8; w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            title.append("story ").append(i);
+            articles.add(article(i, title.toString(), SECTIONS[i % SECTIONS.length],
+                    "Writer " + (i % 500), random.nextInt(1000000)));
+        }
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        ArticleIndex index = new ArticleIndex();
+        // Fed in pages, as the responses are parsed.
+        for (int i = 0; i < ARTICLES; i += 50) {
+            index.addAll(articles.subList(i, i + 50));
+        }
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        long indexBytes = usedHeap() - before;
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = i % 2 == 0 ? WORDS[random.nextInt(WORDS.length)]
+                    : WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        }
+        // Warm up, then time.
+        int matched = 0;
+        for (String query : queries) {
+            matched += index.search(query, PAGE_SIZE).size();
+        }
+        start = System.nanoTime();
+        for (String query : queries) {
+            matched += index.search(query, PAGE_SIZE).size();
+        }
+        double queryMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+
+        System.out.printf("index of %d articles: built in %.1f ms, %d KB, %.1f us per query%n",
+                ARTICLES, buildMillis, indexBytes / 1024, queryMicros);
+
+        assertEquals(ARTICLES, index.size());
+        assertTrue(matched > 0);
+        assertTrue(queryMicros < 1000);
+    }
+
+    private static Article article(int index, String title, String section, String contributor,
+                                   long publishedAt) {
+        return new Article(title, section, publishedAt, contributor, url(index));
+    }
+
+    private static String url(int index) {
+        return GuardianResponses.webUrl(index);
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getmWebUrl());
+        }
+        return urls;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
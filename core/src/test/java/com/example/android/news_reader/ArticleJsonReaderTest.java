@@ -0,0 +1,131 @@
+package com.example.android.news_reader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the streaming parser against the previous read-everything-then-JSONObject path.
+ */
+public class ArticleJsonReaderTest {
+
+    private static final int LARGE_RESPONSE = 200;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void streamingParse_readsEveryResult() {
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(GuardianResponses.searchBytes(3)));
+
+        assertEquals(3, articles.size());
+        Article first = articles.get(0);
+        assertEquals("Headline number 0 about markets, ledgers and the people who run them",
+                first.getmTitle());
+        assertEquals("World news", first.getmSection());
+        assertEquals(IsoDates.parse("2018-01-01T00:00:00Z"), first.getPublishedAt());
+        assertEquals("2018-01-01", first.getDisplayDate());
+        assertEquals("Writer 0", first.getmContributor());
+        assertEquals(GuardianResponses.webUrl(0), first.getmWebUrl());
+    }
+
+    @Test
+    public void streamingParse_toleratesMissingTagsAndNulls() {
+        String json = "{\"response\":{\"results\":[{\"webTitle\":null,\"webUrl\":\"u\",\"tags\":[]}]}}";
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+
+        assertEquals(1, articles.size());
+        assertEquals("", articles.get(0).getmTitle());
+        assertEquals("", articles.get(0).getmContributor());
+        assertEquals("u", articles.get(0).getmWebUrl());
+    }
+
+    @Test
+    public void streamingParse_keepsArticlesReadBeforeMalformedInput() {
+        String json = "{\"response\":{\"results\":[{\"webUrl\":\"a\"},{\"webUrl\":";
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+
+        assertEquals(1, articles.size());
+    }
+
+    @Test
+    public void streamingParse_allocatesLessThanTreeParse() throws Exception {
+        byte[] body = GuardianResponses.searchBytes(LARGE_RESPONSE);
+
+        // Warm both paths up so the comparison is not dominated by class loading and JIT.
+        for (int i = 0; i < ROUNDS; i++) {
+            treeParse(new ByteArrayInputStream(body));
+            QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(body));
+        }
+
+        long treeStart = System.nanoTime();
+        long treeBytes = allocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(LARGE_RESPONSE, treeParse(new ByteArrayInputStream(body)).size());
+        }
+        treeBytes = allocatedBytes() - treeBytes;
+        long treeNanos = System.nanoTime() - treeStart;
+
+        long streamStart = System.nanoTime();
+        long streamBytes = allocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(LARGE_RESPONSE,
+                    QueryUtils.extractArticlesFromStream(new ByteArrayInputStream(body)).size());
+        }
+        streamBytes = allocatedBytes() - streamBytes;
+        long streamNanos = System.nanoTime() - streamStart;
+
+        System.out.printf("parse %d results (%d KB): tree %d KB / %.2f ms, stream %d KB / %.2f ms%n",
+                LARGE_RESPONSE, body.length / 1024,
+                treeBytes / ROUNDS / 1024, treeNanos / ROUNDS / 1e6,
+                streamBytes / ROUNDS / 1024, streamNanos / ROUNDS / 1e6);
+
+        assertTrue("streaming parse should allocate less than the tree parse",
+                streamBytes < treeBytes);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // The path QueryUtils used before the streaming parser: buffer the whole body into a
+    // String, build a JSONObject tree, then copy the fields out.
+    private static List<Article> treeParse(InputStream inputStream) throws IOException, JSONException {
+        StringBuilder output = new StringBuilder();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        String line = reader.readLine();
+        while (line != null) {
+            output.append(line);
+            line = reader.readLine();
+        }
+
+        List<Article> articles = new ArrayList<>();
+        JSONArray results = new JSONObject(output.toString())
+                .getJSONObject("response").getJSONArray("results");
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String author = result.optJSONArray("tags").getJSONObject(0).optString("webTitle");
+            articles.add(new Article(result.optString("webTitle"), result.optString("sectionName"),
+                    IsoDates.parse(result.optString("webPublicationDate")), author,
+                    result.optString("webUrl")));
+        }
+        return articles;
+    }
+}
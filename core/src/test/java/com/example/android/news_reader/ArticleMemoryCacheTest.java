@@ -0,0 +1,67 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ArticleMemoryCacheTest {
+
+    private static final long TTL = 60000;
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(100, TTL);
+        cache.put("https://content.guardianapis.com/search?q=bitcoin", page(10), 0);
+
+        assertNotNull(cache.get("https://content.guardianapis.com/search?q=bitcoin", 1000));
+        assertNull(cache.get("https://content.guardianapis.com/search?q=ethereum", 1000));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void get_missesOnceTheEntryExpired() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(100, TTL);
+        cache.put("https://content.guardianapis.com/search?q=bitcoin", page(10), 0);
+
+        assertNull(cache.get("https://content.guardianapis.com/search?q=bitcoin", TTL + 1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_evictsTheLeastRecentlyUsedFeed() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(25, TTL);
+        cache.put("https://content.guardianapis.com/search?order-by=newest", page(10), 0);
+        cache.put("https://content.guardianapis.com/search?order-by=oldest", page(10), 0);
+        // Touch the first feed, so the second one is the least recently used.
+        cache.get("https://content.guardianapis.com/search?order-by=newest", 0);
+        cache.put("https://content.guardianapis.com/search?order-by=relevance", page(10), 0);
+
+        assertNotNull(cache.get("https://content.guardianapis.com/search?order-by=newest", 0));
+        assertNull(cache.get("https://content.guardianapis.com/search?order-by=oldest", 0));
+        assertEquals(20, cache.size());
+    }
+
+    @Test
+    public void get_ignoresQueryParameterOrderAndHostCase() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(100, TTL);
+        cache.put("https://content.guardianapis.com/search?q=bitcoin&page=1", page(10), 0);
+
+        assertNotNull(cache.get("https://Content.GuardianApis.com/search?page=1&q=bitcoin", 0));
+    }
+
+    private static List<Article> page(int size) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            articles.add(new Article("Title " + i, "Technology", i, "Writer",
+                    GuardianResponses.webUrl(i)));
+        }
+        return articles;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how {@link ArticlePager} appends, de-duplicates and evicts pages.
+ */
+public class ArticlePagerTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    @Test
+    public void nextPage_isAppendedWithoutDuplicates() {
+        ArticlePager pager = new ArticlePager(PAGE_SIZE, 5);
+        assertTrue(pager.onPageLoaded(1, page(0, 1, 2)));
+        // A new story pushed article 2 onto the second page as well.
+        assertTrue(pager.onPageLoaded(2, page(2, 3, 4)));
+
+        assertEquals(urls(0, 1, 2, 3, 4), urls(pager.getArticles()));
+        assertTrue(pager.hasNextPage());
+    }
+
+    @Test
+    public void shortPage_endsTheFeed() {
+        ArticlePager pager = new ArticlePager(PAGE_SIZE, 5);
+        pager.onPageLoaded(1, page(0, 1, 2));
+        pager.onPageLoaded(2, page(3));
+
+        assertFalse(pager.hasNextPage());
+    }
+
+    @Test
+    public void pagesBeyondTheCap_evictTheOldestAndComeBackOnTheWayUp() {
+        ArticlePager pager = new ArticlePager(PAGE_SIZE, 2);
+        pager.onPageLoaded(1, page(0, 1, 2));
+        pager.onPageLoaded(2, page(3, 4, 5));
+
+        assertTrue(pager.onPageLoaded(3, page(6, 7, 8)));
+        assertEquals(2, pager.getFirstPage());
+        assertEquals(urls(3, 4, 5, 6, 7, 8), urls(pager.getArticles()));
+        assertTrue(pager.hasPreviousPage());
+
+        assertTrue(pager.onPageLoaded(1, page(0, 1, 2)));
+        assertEquals(2, pager.getLastPage());
+        assertEquals(urls(0, 1, 2, 3, 4, 5), urls(pager.getArticles()));
+    }
+
+    @Test
+    public void pageOutsideTheHeldRange_isIgnored() {
+        ArticlePager pager = new ArticlePager(PAGE_SIZE, 5);
+        pager.onPageLoaded(1, page(0, 1, 2));
+
+        assertFalse(pager.onPageLoaded(4, page(9, 10, 11)));
+        assertEquals(urls(0, 1, 2), urls(pager.getArticles()));
+    }
+
+    @Test
+    public void clear_startsOverFromTheFirstPage() {
+        ArticlePager pager = new ArticlePager(PAGE_SIZE, 5);
+        pager.onPageLoaded(1, page(0, 1, 2));
+        pager.onPageLoaded(2, page(3, 4, 5));
+
+        pager.clear();
+
+        assertEquals(0, pager.getArticles().size());
+        assertFalse(pager.onPageLoaded(2, page(3, 4, 5)));
+        assertTrue(pager.onPageLoaded(1, page(6, 7, 8)));
+        assertEquals(urls(6, 7, 8), urls(pager.getArticles()));
+    }
+
+    private static List<String> urls(int... indexes) {
+        List<String> urls = new ArrayList<>();
+        for (int index : indexes) {
+            urls.add(GuardianResponses.webUrl(index));
+        }
+        return urls;
+    }
+
+    private static List<String> urls(List<Article> articles) {
+        List<String> urls = new ArrayList<>();
+        for (Article article : articles) {
+            urls.add(article.getmWebUrl());
+        }
+        return urls;
+    }
+
+    private static List<Article> page(int... indexes) {
+        List<Article> articles = new ArrayList<>();
+        for (int index : indexes) {
+            articles.add(new Article("Title " + index, "Technology",
+                    IsoDates.parse("2018-07-23T00:00:00Z"), "Writer", GuardianResponses.webUrl(index)));
+        }
+        return articles;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the list asks for and decodes only what its rows show, and measures what that
+ * saves per page.
+ */
+public class ArticleProjectionTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int PAGE_SIZE = 30;
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void listProjection_asksForItsFields() {
+        assertEquals("byline,thumbnail", ArticleProjection.LIST.getShowFields());
+    }
+
+    @Test
+    public void projectedPage_decodesTheSameRows() throws IOException {
+        List<Article> withTags = parse(GuardianResponses.searchWithTags(PAGE_SIZE));
+        List<Article> projected = parse(GuardianResponses.searchProjected(PAGE_SIZE));
+
+        assertEquals(withTags, projected);
+        assertEquals("Writer 7", projected.get(7).getmContributor());
+        assertEquals(GuardianResponses.thumbnailUrl(7), projected.get(7).getThumbnail());
+    }
+
+    @Test
+    public void projectedPage_isSmallerAndFasterToParse() throws IOException {
+        String withTags = GuardianResponses.searchWithTags(PAGE_SIZE);
+        String projected = GuardianResponses.searchProjected(PAGE_SIZE);
+
+        long tagsMicros = parseMicros(withTags);
+        long projectedMicros = parseMicros(projected);
+        int tagsBytes = withTags.getBytes(UTF_8).length;
+        int projectedBytes = projected.getBytes(UTF_8).length;
+
+        System.out.println("projection: " + PAGE_SIZE + " rows, " + tagsBytes + " -> "
+                + projectedBytes + " bytes (" + gzipLength(withTags) + " -> "
+                + gzipLength(projected) + " gzipped), parse " + tagsMicros + " -> "
+                + projectedMicros + " us");
+        assertTrue(projectedBytes < tagsBytes);
+    }
+
+    // Average time to parse the response, after a warm-up of the same length.
+    private static long parseMicros(String json) throws IOException {
+        byte[] body = json.getBytes(UTF_8);
+        for (int i = 0; i < ROUNDS; i++) {
+            parse(body);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            parse(body);
+        }
+        return (System.nanoTime() - start) / ROUNDS / 1000;
+    }
+
+    private static List<Article> parse(String json) throws IOException {
+        return parse(json.getBytes(UTF_8));
+    }
+
+    private static List<Article> parse(byte[] body) throws IOException {
+        List<Article> articles = new ArrayList<>();
+        ArticleJsonReader reader = new ArticleJsonReader(new ByteArrayInputStream(body));
+        try {
+            while (reader.hasNext()) {
+                articles.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+        return articles;
+    }
+
+    private static int gzipLength(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(json.getBytes(UTF_8));
+        out.close();
+        return bytes.size();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.android.news_reader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round-trips article lists through {@link ArticleSnapshot} and checks that a snapshot is only
+ * decoded as far as it is read.
+ */
+public class ArticleSnapshotTest {
+
+    private static final int ARTICLES = 5000;
+    private static final int VISIBLE_ROWS = 12;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void snapshot_roundTripsEveryField() throws Exception {
+        List<Article> articles = parse(200);
+        // A title with characters outside ASCII, and an article without a contributor.
+        articles.add(new Article("Caf\u00e9 \u2013 \u201cna\u00efve\u201d \u20ac", "World news",
+                1532338200000L, "", "https://www.theguardian.com/world/cafe"));
+        File file = mFolder.newFile();
+
+        ArticleSnapshot.write(file, articles);
+        ArticleSnapshot snapshot = ArticleSnapshot.open(file);
+
+        assertEquals(articles.size(), snapshot.size());
+        assertEquals(articles, snapshot);
+        assertEquals("2018-07-23", snapshot.get(articles.size() - 1).getDisplayDate());
+    }
+
+    @Test
+    public void open_decodesOnlyTheRowsRead() throws Exception {
+        List<Article> articles = parse(ARTICLES);
+        File file = mFolder.newFile();
+        ArticleSnapshot.write(file, articles);
+
+        long start = System.nanoTime();
+        ArticleSnapshot snapshot = ArticleSnapshot.open(file);
+        for (int i = 0; i < VISIBLE_ROWS; i++) {
+            snapshot.get(i);
+        }
+        long snapshotMicros = (System.nanoTime() - start) / 1000;
+
+        assertEquals(VISIBLE_ROWS, snapshot.decodedCount());
+        assertEquals(articles.get(VISIBLE_ROWS - 1), snapshot.get(VISIBLE_ROWS - 1));
+
+        byte[] json = GuardianResponses.searchBytes(ARTICLES);
+        start = System.nanoTime();
+        parseWithoutIndex(json);
+        long jsonMicros = (System.nanoTime() - start) / 1000;
+
+        System.out.println("snapshot: " + ARTICLES + " articles in " + file.length()
+                + " bytes (" + json.length + " as JSON); first " + VISIBLE_ROWS + " rows in "
+                + snapshotMicros + " us, full JSON parse " + jsonMicros + " us");
+    }
+
+    @Test
+    public void memoryCache_holdsASnapshotWithoutDecodingIt() throws Exception {
+        File file = mFolder.newFile();
+        ArticleSnapshot.write(file, parse(ARTICLES));
+        ArticleSnapshot snapshot = ArticleSnapshot.open(file);
+        ArticleMemoryCache cache = new ArticleMemoryCache(ARTICLES, 60000);
+
+        cache.put("https://example.com/snapshot", snapshot, 0);
+
+        assertSame(snapshot, cache.get("https://example.com/snapshot", 0));
+        assertEquals(0, snapshot.decodedCount());
+    }
+
+    @Test
+    public void open_rejectsOtherFiles() throws IOException {
+        File file = mFolder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(GuardianResponses.searchBytes(1));
+        out.close();
+
+        try {
+            ArticleSnapshot.open(file);
+            fail();
+        } catch (IOException expected) {
+            // Not a snapshot.
+        }
+    }
+
+    @Test
+    public void damagedRow_failsOnlyWhenRead() throws Exception {
+        File cacheDir = mFolder.newFolder();
+        ArticleCache.write(cacheDir, new CachedResponse("https://example.com/a", null, null,
+                parse(30)));
+        File file = null;
+        for (File candidate : new File(cacheDir, "articles").listFiles()) {
+            if (!candidate.getName().endsWith(".json")) {
+                file = candidate;
+            }
+        }
+
+        // Give the title of the last row a length that runs past the end of the rows.
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.seek(20);
+            int rowIndex = out.readInt();
+            out.seek(rowIndex + 4 * 29);
+            int row = out.readInt();
+            out.seek(row + 16);
+            out.writeInt(1 << 20);
+        } finally {
+            out.close();
+        }
+
+        // Opening reads only the header, and the rows before the damaged one are fine.
+        List<Article> articles = ArticleCache.read(cacheDir, "https://example.com/a")
+                .getArticles();
+        assertEquals(30, articles.size());
+        assertEquals("Writer 28", articles.get(28).getmContributor());
+        try {
+            articles.get(29);
+            fail();
+        } catch (IllegalStateException expected) {
+            // Found when the row is read.
+        }
+        // The damaged file is not served again.
+        assertNull(ArticleCache.read(cacheDir, "https://example.com/a"));
+    }
+
+    @Test
+    public void articleCache_storesArticlesAsSnapshot() throws Exception {
+        File cacheDir = mFolder.newFolder();
+        List<Article> articles = parse(30);
+        ArticleCache.write(cacheDir, new CachedResponse("https://example.com/a", "\"v1\"", null,
+                articles));
+
+        CachedResponse cached = ArticleCache.read(cacheDir, "https://example.com/a");
+
+        assertEquals("\"v1\"", cached.getETag());
+        assertTrue(cached.getArticles() instanceof ArticleSnapshot);
+        assertEquals(articles, cached.getArticles());
+        assertNull(ArticleCache.read(cacheDir, "https://example.com/b"));
+
+        ArticleCache.write(cacheDir, new CachedResponse("https://example.com/a", null, null,
+                Collections.<Article>emptyList()));
+        assertEquals(0, ArticleCache.read(cacheDir, "https://example.com/a").getArticles().size());
+    }
+
+    private static List<Article> parse(int count) throws IOException {
+        return parseWithoutIndex(GuardianResponses.searchBytes(count));
+    }
+
+    // Reads the articles directly, keeping them out of the process-wide index.
+    private static List<Article> parseWithoutIndex(byte[] json) throws IOException {
+        List<Article> articles = new ArrayList<>();
+        ArticleJsonReader reader = new ArticleJsonReader(new ByteArrayInputStream(json));
+        try {
+            while (reader.hasNext()) {
+                articles.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+        return articles;
+    }
+}
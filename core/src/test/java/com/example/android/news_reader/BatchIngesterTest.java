@@ -0,0 +1,200 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Crawls a month from a local stand-in for The Guardian and checks the sharding, the
+ * checkpointing and the file the articles end up in.
+ */
+public class BatchIngesterTest {
+
+    private static final int RESULTS = 20;
+    private static final int PAGE_SIZE = 50;
+
+    // January split into weeks: the 1st, 8th, 15th, 22nd and 29th.
+    private static final int SHARDS = 5;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private LocalGuardianServer mServer;
+    private File mOutput;
+    private File mCheckpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), null);
+        QueryUtils.resetCircuitBreakers();
+        QueryUtils.setRetryPolicy(new RetryPolicy(1, 20, 200, 2000, new Random(7)));
+        mOutput = new File(mFolder.getRoot(), "articles.bin");
+        mCheckpoint = new File(mFolder.getRoot(), "articles.bin.checkpoint");
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+        QueryUtils.resetCircuitBreakers();
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 500, 4000, 5000, new Random()));
+    }
+
+    @Test
+    public void ingest_writesEveryShard() throws Exception {
+        BatchIngester.Result result = ingest(50);
+        System.out.println("ingest: " + result);
+
+        assertEquals(SHARDS, result.getShards());
+        assertEquals(0, result.getFailedShards());
+        assertEquals(SHARDS * RESULTS, result.getArticles());
+        assertEquals(SHARDS, mServer.requests());
+
+        List<Article> written = readOutput();
+        List<Article> expected = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(GuardianResponses.searchBytes(RESULTS)));
+        assertEquals(SHARDS * RESULTS, written.size());
+        assertEquals(expected, written.subList(0, RESULTS));
+
+        long json = (long) SHARDS * GuardianResponses.searchBytes(RESULTS).length;
+        System.out.println("ingest: " + mOutput.length() + " bytes on disk for " + json
+                + " bytes of JSON");
+    }
+
+    @Test
+    public void ingest_skipsShardsAlreadyDone() throws Exception {
+        ingest(50);
+        long length = mOutput.length();
+        mServer.resetCounters();
+
+        BatchIngester.Result result = ingest(50);
+
+        assertEquals(SHARDS, result.getSkippedShards());
+        assertEquals(0, mServer.requests());
+        assertEquals(length, mOutput.length());
+        assertEquals(SHARDS * RESULTS, readOutput().size());
+    }
+
+    @Test
+    public void ingest_fetchesFailedShardOnNextRun() throws Exception {
+        mServer.enqueueStatus(403, null);
+
+        BatchIngester.Result first = ingest(50);
+        assertEquals(1, first.getFailedShards());
+        assertEquals((SHARDS - 1) * RESULTS, readOutput().size());
+        mServer.resetCounters();
+
+        BatchIngester.Result second = ingest(50);
+        assertEquals(0, second.getFailedShards());
+        assertEquals(SHARDS - 1, second.getSkippedShards());
+        assertEquals(1, mServer.requests());
+        assertEquals(SHARDS * RESULTS, readOutput().size());
+    }
+
+    @Test
+    public void ingest_dropsWritesAfterTheLastCheckpoint() throws Exception {
+        ingest(50);
+
+        // Pretend the run died after writing its last shard but before checkpointing it.
+        List<String> lines = readLines(mCheckpoint);
+        FileOutputStream checkpoint = new FileOutputStream(mCheckpoint);
+        for (String line : lines.subList(0, lines.size() - 1)) {
+            checkpoint.write((line + '\n').getBytes("UTF-8"));
+        }
+        checkpoint.close();
+        FileOutputStream output = new FileOutputStream(mOutput, true);
+        output.write(new byte[]{1, 2, 3});
+        output.close();
+        mServer.resetCounters();
+
+        ingest(50);
+
+        assertEquals(1, mServer.requests());
+        assertEquals(SHARDS * RESULTS, readOutput().size());
+    }
+
+    @Test
+    public void ingest_staysUnderTheRateLimit() throws Exception {
+        BatchIngester.Result result = ingest(20);
+
+        // The first request goes straight away, every later one waits 50 ms for its slot.
+        assertTrue(result.getElapsedMillis() >= (SHARDS - 1) * 50);
+    }
+
+    @Test
+    public void ingest_stopsAtTheLastPageTheSearchReports() throws Exception {
+        // Every shard fills exactly one page; a page past it would be answered with a 400.
+        mServer.setResponse(GuardianResponses.searchBytes(PAGE_SIZE), null);
+
+        BatchIngester.Result result = ingest(50);
+
+        assertEquals(0, result.getFailedShards());
+        assertEquals(SHARDS * PAGE_SIZE, result.getArticles());
+        assertEquals(SHARDS, mServer.requests());
+    }
+
+    @Test
+    public void ingest_ratesLimitsRetriesToo() throws Exception {
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 1, 1, 2000, new Random(7)));
+        mServer.enqueueStatus(503, null);
+        mServer.enqueueStatus(503, null);
+        BatchIngester ingester = new BatchIngester(mServer.url(""), "test", 1,
+                new RateLimiter(20), PAGE_SIZE);
+
+        // One shard, answered on the third attempt; each attempt waits 50 ms for its slot.
+        BatchIngester.Result result = ingester.ingest("bitcoin", "2018-01-01", "2018-01-07", 7,
+                mOutput, mCheckpoint);
+
+        assertEquals(0, result.getFailedShards());
+        assertEquals(3, mServer.requests());
+        assertTrue(result.getElapsedMillis() >= 2 * 50);
+    }
+
+    private BatchIngester.Result ingest(double requestsPerSecond) throws IOException {
+        BatchIngester ingester = new BatchIngester(mServer.url(""), "test", 4,
+                new RateLimiter(requestsPerSecond), PAGE_SIZE);
+        return ingester.ingest("bitcoin", "2018-01-01", "2018-01-31", 7, mOutput, mCheckpoint);
+    }
+
+    private List<Article> readOutput() throws IOException {
+        List<Article> articles = new ArrayList<>();
+        ArticleFileReader reader = new ArticleFileReader(new FileInputStream(mOutput));
+        try {
+            while (reader.hasNext()) {
+                articles.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+        return articles;
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        } finally {
+            in.close();
+        }
+    }
+}
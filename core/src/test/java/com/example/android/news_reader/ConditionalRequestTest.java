@@ -0,0 +1,107 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the conditional and compressed requests made by {@link QueryUtils} against a local
+ * stand-in server, reporting bytes transferred and latency for unchanged and changed feeds.
+ */
+public class ConditionalRequestTest {
+
+    private static final int RESULTS = 200;
+
+    private LocalGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void unchangedFeed_isAnsweredWith304AndReusesLastList() {
+        String url = mServer.url("q=unchanged");
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), "\"v1\"");
+
+        long start = System.nanoTime();
+        List<Article> first = QueryUtils.fetchArticleData(url);
+        long fullNanos = System.nanoTime() - start;
+        long fullBytes = mServer.bodyBytes();
+
+        mServer.resetCounters();
+        start = System.nanoTime();
+        List<Article> second = QueryUtils.fetchArticleData(url);
+        long conditionalNanos = System.nanoTime() - start;
+
+        System.out.printf("unchanged feed: full %d bytes / %.2f ms, conditional %d bytes / %.2f ms%n",
+                fullBytes, fullNanos / 1e6, mServer.bodyBytes(), conditionalNanos / 1e6);
+
+        assertEquals(RESULTS, first.size());
+        assertEquals(1, mServer.notModified());
+        assertEquals(0, mServer.bodyBytes());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void changedFeed_isDownloadedAgain() {
+        String url = mServer.url("q=changed");
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), "\"v1\"");
+        List<Article> first = QueryUtils.fetchArticleData(url);
+
+        mServer.resetCounters();
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS + 1), "\"v2\"");
+        long start = System.nanoTime();
+        List<Article> second = QueryUtils.fetchArticleData(url);
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("changed feed: %d bytes / %.2f ms%n", mServer.bodyBytes(), nanos / 1e6);
+
+        assertEquals(0, mServer.notModified());
+        assertNotSame(first, second);
+        assertEquals(RESULTS + 1, second.size());
+    }
+
+    @Test
+    public void onlyRecentResponses_areKept() {
+        List<Article> articles = QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(GuardianResponses.searchBytes(1)));
+        for (int i = 0; i <= QueryUtils.MAX_CACHED_RESPONSES; i++) {
+            QueryUtils.putCachedResponse(new CachedResponse(mServer.url("q=page&page=" + i),
+                    "\"v" + i + "\"", null, articles));
+        }
+
+        assertNull(QueryUtils.getCachedResponse(mServer.url("q=page&page=0")));
+        assertNotNull(QueryUtils.getCachedResponse(
+                mServer.url("q=page&page=" + QueryUtils.MAX_CACHED_RESPONSES)));
+    }
+
+    @Test
+    public void body_isTransferredCompressed() {
+        byte[] body = GuardianResponses.searchBytes(RESULTS);
+        mServer.setResponse(body, null);
+
+        List<Article> articles = QueryUtils.fetchArticleData(mServer.url("q=gzip"));
+
+        System.out.printf("gzip: %d bytes on the wire for a %d byte body%n",
+                mServer.bodyBytes(), body.length);
+
+        assertEquals(RESULTS, articles.size());
+        assertTrue(mServer.bodyBytes() < body.length / 4);
+    }
+}
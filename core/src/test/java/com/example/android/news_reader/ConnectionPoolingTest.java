@@ -0,0 +1,66 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares 50 sequential requests to a local HTTPS stand-in with and without connection
+ * pooling in {@link PooledHttpClient}.
+ */
+public class ConnectionPoolingTest {
+
+    private static final int REQUESTS = 50;
+    private static final int RESULTS = 20;
+
+    private SSLContext mSslContext;
+    private LocalGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mSslContext = LocalGuardianServer.localhostSslContext();
+        mServer = new LocalGuardianServer(mSslContext);
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), null);
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setHttpTransport(new PooledHttpClient(4, 15000, 10000, true, null));
+        mServer.stop();
+    }
+
+    @Test
+    public void pooledClient_reusesOneConnection() {
+        long unpooledNanos = run(new PooledHttpClient(4, 15000, 10000, false, mSslContext));
+        int unpooledConnections = mServer.connections();
+
+        mServer.resetCounters();
+        long pooledNanos = run(new PooledHttpClient(4, 15000, 10000, true, mSslContext));
+        int pooledConnections = mServer.connections();
+
+        System.out.printf("%d sequential HTTPS requests: without pooling %d connections / %.2f ms,"
+                        + " with pooling %d connections / %.2f ms%n",
+                REQUESTS, unpooledConnections, unpooledNanos / 1e6,
+                pooledConnections, pooledNanos / 1e6);
+
+        assertEquals(REQUESTS, unpooledConnections);
+        assertTrue("pooled requests should share connections", pooledConnections <= 2);
+    }
+
+    private long run(PooledHttpClient client) {
+        QueryUtils.setHttpTransport(client);
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            List<Article> articles = QueryUtils.fetchArticleData(mServer.url("q=pool&page=" + i));
+            assertEquals(RESULTS, articles.size());
+        }
+        return System.nanoTime() - start;
+    }
+}
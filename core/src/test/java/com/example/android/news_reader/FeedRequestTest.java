@@ -0,0 +1,72 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the URLs and queries {@link FeedRequest#create} builds without android.net.Uri.
+ */
+public class FeedRequestTest {
+
+    @Test
+    public void encodesParametersLikeUri() {
+        FeedRequest request = FeedRequest.create("key", "newest", "climate change, a&b",
+                Collections.<String>emptySet(), "bitcoin", 2, 30,
+                ArticleProjection.LIST);
+
+        assertEquals(Arrays.asList("climate change", "a&b"), request.getQueries());
+        assertEquals("https://content.guardianapis.com/search?from-date=2018-01-01"
+                        + "&to-date=2018-12-31&show-fields=byline%2Cthumbnail&order-by=newest"
+                        + "&q=climate%20change&page=2&page-size=30&api-key=key",
+                request.getUrls().get(0));
+        assertTrue(request.getUrls().get(1).contains("&q=a%26b&"));
+        assertTrue(request.isNewestFirst());
+    }
+
+    @Test
+    public void sortsSectionsAndFallsBackToDefaultTopic() {
+        FeedRequest request = FeedRequest.create("key", FeedRequest.ORDER_BY_OLDEST, " , ",
+                Arrays.asList("world", "business"), "bitcoin", 1, 30,
+                ArticleProjection.LIST);
+        assertEquals(Arrays.asList("business", "world"), request.getQueries());
+        assertFalse(request.isNewestFirst());
+
+        FeedRequest empty = FeedRequest.create("key", "newest", "",
+                Collections.<String>emptySet(), "bitcoin", 1, 30,
+                ArticleProjection.LIST);
+        assertEquals(Collections.singletonList("bitcoin"), empty.getQueries());
+    }
+
+    @Test
+    public void newerThan_asksForTheFirstPageSinceTheMark() {
+        FeedRequest request = FeedRequest.create("key", FeedRequest.ORDER_BY_OLDEST, "bitcoin",
+                Collections.<String>emptySet(), "bitcoin", 3, 30,
+                ArticleProjection.LIST);
+
+        String newer = FeedRequest.newerThan(request.getUrls().get(0),
+                IsoDates.parse("2018-07-23T09:05:07Z"));
+
+        assertEquals("https://content.guardianapis.com/search?from-date=2018-07-23T09%3A05%3A07Z"
+                        + "&to-date=2018-12-31&show-fields=byline%2Cthumbnail&order-by=newest"
+                        + "&q=bitcoin&page=1&page-size=30&api-key=key", newer);
+    }
+
+    @Test
+    public void projectionOfAlwaysPresentFields_asksForNoShowFields() {
+        FeedRequest request = FeedRequest.create("key", "newest", "bitcoin",
+                Collections.<String>emptySet(), "bitcoin", 1, 30,
+                ArticleProjection.of(ArticleProjection.Field.TITLE,
+                        ArticleProjection.Field.WEB_URL));
+
+        assertEquals("https://content.guardianapis.com/search?from-date=2018-01-01"
+                        + "&to-date=2018-12-31&order-by=newest&q=bitcoin&page=1&page-size=30"
+                        + "&api-key=key",
+                request.getUrls().get(0));
+    }
+}
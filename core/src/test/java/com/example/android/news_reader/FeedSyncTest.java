@@ -0,0 +1,103 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link FeedSync#refreshNewer} asks only for the articles published since the
+ * newest one held, merges them in on top, and falls back to a full fetch when it must.
+ */
+public class FeedSyncTest {
+
+    private static final int PAGE_SIZE = 30;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private LocalGuardianServer mServer;
+    private File mCacheDir;
+    private FeedRequest mRequest;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mCacheDir = mFolder.newFolder("cache");
+        String url = mServer.url("from-date=2018-01-01&order-by=newest&q=sync&page=1&page-size="
+                + PAGE_SIZE);
+        mRequest = new FeedRequest(Collections.singletonList(url),
+                Collections.singletonList("sync"), true, 1, PAGE_SIZE);
+        QueryUtils.resetCircuitBreakers();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void refreshNewer_fetchesSinceTheNewestAndMergesOnTop() {
+        mServer.setResponse(GuardianResponses.searchBytes(10), null);
+        List<Article> current = FeedSync.refresh(mCacheDir, mRequest, null);
+        assertNotNull(current);
+        assertEquals(10, current.size());
+
+        // Two articles published since; the server also sends back the ones at the mark.
+        mServer.setResponse(GuardianResponses.searchBytes(12), null);
+        List<Article> articles = FeedSync.refreshNewer(mCacheDir, mRequest, current);
+
+        // Article 9 is the newest of the first ten.
+        String query = mServer.lastQuery();
+        assertTrue(query, query.contains("from-date=2018-10-10T09%3A09%3A00Z&"));
+        assertTrue(query, query.contains("order-by=newest"));
+        assertEquals(12, articles.size());
+        Set<String> webUrls = new HashSet<>();
+        for (Article article : articles) {
+            webUrls.add(article.getmWebUrl());
+        }
+        assertTrue(webUrls.contains(GuardianResponses.webUrl(10)));
+        assertTrue(webUrls.contains(GuardianResponses.webUrl(11)));
+        assertEquals(articles, ArticleCache.read(mCacheDir, mRequest.getCacheKey()).getArticles());
+
+        // Nothing since: the list held is handed back as it is.
+        assertSame(articles, FeedSync.refreshNewer(mCacheDir, mRequest, articles));
+    }
+
+    @Test
+    public void refreshNewer_fetchesInFullWithoutAMark() {
+        mServer.setResponse(GuardianResponses.searchBytes(10), null);
+        List<Article> held = QueryUtils.fetchArticleData(mRequest.getUrls().get(0));
+
+        FeedSync.refreshNewer(mCacheDir, mRequest, held.subList(0, 5));
+
+        assertTrue(mServer.lastQuery().contains("from-date=2018-01-01&"));
+    }
+
+    @Test
+    public void refreshNewer_fetchesInFullWhenAWholePageIsNew() {
+        mServer.setResponse(GuardianResponses.searchBytes(10), null);
+        List<Article> current = FeedSync.refresh(mCacheDir, mRequest, null);
+
+        // A page of new articles may have more behind it, so the gap is closed in full.
+        mServer.setResponse(GuardianResponses.searchBytes(PAGE_SIZE), null);
+        mServer.resetCounters();
+        List<Article> articles = FeedSync.refreshNewer(mCacheDir, mRequest, current);
+
+        assertEquals(2, mServer.requests());
+        assertTrue(mServer.lastQuery().contains("from-date=2018-01-01&"));
+        assertEquals(PAGE_SIZE, articles.size());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link FetchEngine} runs the most urgent job first, and that cancelling a job
+ * drops it from the queue or aborts its request mid-read without tripping the breaker or
+ * caching a partial response.
+ */
+public class FetchEngineTest {
+
+    private static final long SLOW_RESPONSE = 5000;
+
+    private LocalGuardianServer mServer;
+    private FetchEngine mEngine;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mServer.setResponse(GuardianResponses.searchBytes(10), null);
+        mServer.setDelay("slow", SLOW_RESPONSE);
+        mEngine = new FetchEngine(1, "test-fetch");
+        QueryUtils.resetCircuitBreakers();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+        QueryUtils.resetCircuitBreakers();
+    }
+
+    @Test
+    public void submit_runsTheMostUrgentFirst() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        // Hold the only thread so the rest queue up behind it.
+        mEngine.submit(FetchEngine.PRIORITY_VISIBLE, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                release.await();
+                return null;
+            }
+        }, null);
+
+        for (final int priority : new int[]{FetchEngine.PRIORITY_PREFETCH,
+                FetchEngine.PRIORITY_NEXT_PAGE, FetchEngine.PRIORITY_VISIBLE}) {
+            mEngine.submit(priority, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    order.add(priority);
+                    done.countDown();
+                    return null;
+                }
+            }, null);
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(FetchEngine.PRIORITY_VISIBLE, FetchEngine.PRIORITY_NEXT_PAGE,
+                FetchEngine.PRIORITY_PREFETCH), order);
+    }
+
+    @Test
+    public void cancel_dropsAQueuedJob() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean ran = new AtomicBoolean();
+        mEngine.submit(FetchEngine.PRIORITY_VISIBLE, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                release.await();
+                return null;
+            }
+        }, null);
+        FetchEngine.Job<Void> queued = mEngine.submit(FetchEngine.PRIORITY_VISIBLE,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        ran.set(true);
+                        return null;
+                    }
+                }, null);
+
+        queued.cancel();
+        assertEquals(0, mEngine.getQueuedCount());
+        release.countDown();
+        final CountDownLatch idle = new CountDownLatch(1);
+        mEngine.submit(FetchEngine.PRIORITY_PREFETCH, new Callable<Void>() {
+            @Override
+            public Void call() {
+                idle.countDown();
+                return null;
+            }
+        }, null);
+
+        assertTrue(idle.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void cancel_abortsTheRequestInFlight() throws Exception {
+        final String url = mServer.url("q=slow");
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicLong workMillis = new AtomicLong();
+        final AtomicBoolean delivered = new AtomicBoolean();
+        FetchEngine.Job<List<Article>> job = mEngine.submit(FetchEngine.PRIORITY_VISIBLE,
+                new Callable<List<Article>>() {
+                    @Override
+                    public List<Article> call() {
+                        long start = System.currentTimeMillis();
+                        try {
+                            return QueryUtils.fetchArticleData(url);
+                        } finally {
+                            workMillis.set(System.currentTimeMillis() - start);
+                            finished.countDown();
+                        }
+                    }
+                }, new FetchEngine.Callback<List<Article>>() {
+                    @Override
+                    public void onResult(FetchEngine.Job<List<Article>> job, List<Article> result) {
+                        delivered.set(true);
+                    }
+                });
+
+        Thread.sleep(300);
+        job.cancel();
+
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        System.out.println("cancel: request in flight ended " + workMillis.get()
+                + " ms after it started, server would have answered after " + SLOW_RESPONSE);
+        assertTrue(workMillis.get() < SLOW_RESPONSE);
+        assertFalse(delivered.get());
+        assertNull(QueryUtils.getCachedResponse(url));
+        // The abort was ours, so the endpoint is still open for the next request.
+        assertNotNull(QueryUtils.fetchArticleData(mServer.url("q=fast")));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.android.news_reader;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Builds Guardian search responses shaped like the ones recorded from
+ * content.guardianapis.com/search?show-tags=contributor&show-fields=... so the tests can
+ * exercise the parser without a network connection.
+ */
+final class GuardianResponses {
+
+    private static final String[] SECTIONS = {
+            "World news", "Technology", "Business", "Politics", "Sport", "Culture"};
+
+    private GuardianResponses() {
+    }
+
+    /**
+     * Returns a full search response containing {@code count} results.
+     */
+    static String search(int count) {
+        return search(count, true, true, true, false);
+    }
+
+    /**
+     * Returns a response to what the list asked for before {@link ArticleProjection}:
+     * show-tags=contributor and no fields.
+     */
+    static String searchWithTags(int count) {
+        return search(count, false, true, true, false);
+    }
+
+    /**
+     * Returns a response to {@link ArticleProjection#LIST}: show-fields=byline,thumbnail and
+     * no tags.
+     */
+    static String searchProjected(int count) {
+        return search(count, false, true, false, true);
+    }
+
+    private static String search(int count, boolean trail, boolean thumbnail, boolean tags,
+                                 boolean byline) {
+        StringBuilder json = new StringBuilder(count * 2048);
+        json.append("{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\",\"total\":")
+                .append(count)
+                .append(",\"startIndex\":1,\"pageSize\":").append(count)
+                .append(",\"currentPage\":1,\"pages\":1,\"orderBy\":\"newest\",\"results\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendResult(json, i, trail, thumbnail, tags, byline);
+        }
+        json.append("]}}");
+        return json.toString();
+    }
+
+    /**
+     * Returns {@link #search(int)} encoded as UTF-8, as it comes off the wire.
+     */
+    static byte[] searchBytes(int count) {
+        return search(count).getBytes(Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Returns the webUrl used for the result at the given index.
+     */
+    static String webUrl(int index) {
+        return "https://www.theguardian.com/technology/2018/jul/23/article-" + index;
+    }
+
+    /**
+     * Returns the thumbnail url used for the result at the given index.
+     */
+    static String thumbnailUrl(int index) {
+        return "https://media.guim.co.uk/" + index + "/500.jpg";
+    }
+
+    private static void appendResult(StringBuilder json, int i, boolean trail,
+                                     boolean thumbnail, boolean tags, boolean byline) {
+        String section = SECTIONS[i % SECTIONS.length];
+        String date = String.format(Locale.US, "2018-%02d-%02dT%02d:%02d:00Z",
+                1 + i % 12, 1 + i % 28, i % 24, i % 60);
+        json.append("{\"id\":\"technology/2018/jul/23/article-").append(i).append('"')
+                .append(",\"type\":\"article\",\"sectionId\":\"technology\"")
+                .append(",\"sectionName\":\"").append(section).append('"')
+                .append(",\"webPublicationDate\":\"").append(date).append('"')
+                .append(",\"webTitle\":\"Headline number ").append(i)
+                .append(" about markets, ledgers and the people who run them\"")
+                .append(",\"webUrl\":\"").append(webUrl(i)).append('"')
+                .append(",\"apiUrl\":\"https://content.guardianapis.com/technology/2018/jul/23/article-")
+                .append(i).append('"');
+        if (trail || thumbnail || byline) {
+            json.append(",\"fields\":{");
+            if (trail) {
+                json.append("\"trailText\":\"");
+                for (int j = 0; j < 8; j++) {
+                    json.append("A trail paragraph that the list never shows. ");
+                }
+                json.append("\",");
+            }
+            if (byline) {
+                json.append("\"byline\":\"Writer ").append(i % 40).append("\",");
+            }
+            if (thumbnail) {
+                json.append("\"thumbnail\":\"").append(thumbnailUrl(i)).append("\",");
+            }
+            // Drop the trailing comma.
+            json.setLength(json.length() - 1);
+            json.append('}');
+        }
+        if (tags) {
+            json.append(",\"tags\":[{\"id\":\"profile/writer-").append(i % 40).append('"')
+                    .append(",\"type\":\"contributor\",\"webTitle\":\"Writer ").append(i % 40)
+                    .append('"')
+                    .append(",\"webUrl\":\"https://www.theguardian.com/profile/writer-").append(i % 40)
+                    .append("\",\"apiUrl\":\"https://content.guardianapis.com/profile/writer-")
+                    .append(i % 40).append("\",\"bio\":\"<p>Writes about things.</p>\"")
+                    .append(",\"firstName\":\"Writer\",\"lastName\":\"").append(i % 40)
+                    .append("\"}]");
+        }
+        json.append(",\"isHosted\":false,\"pillarId\":\"pillar/news\",\"pillarName\":\"News\"}");
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link ImageDiskCache} keeps to its byte limit by dropping the least recently
+ * used images, and downloads each image only once.
+ */
+public class ImageDiskCacheTest {
+
+    private static final int IMAGE_BYTES = 1000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private LocalGuardianServer mServer;
+    private File mDir;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mDir = mFolder.newFolder("images");
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void put_evictsTheLeastRecentlyUsed() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(mDir, 3 * IMAGE_BYTES);
+        cache.put("a", image(1));
+        cache.put("b", image(2));
+        cache.put("c", image(3));
+        // Reading a makes b the least recently used.
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", image(4));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertEquals(3, cache.count());
+        assertEquals(3 * IMAGE_BYTES, cache.size());
+        assertEquals(3, mDir.list().length);
+    }
+
+    @Test
+    public void reopened_keepsWhatIsOnDiskWithinTheLimit() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(mDir, 3 * IMAGE_BYTES);
+        cache.put("a", image(1));
+        cache.put("b", image(2));
+        new File(mDir, "interrupted.tmp").createNewFile();
+
+        ImageDiskCache reopened = new ImageDiskCache(mDir, IMAGE_BYTES);
+
+        assertEquals(1, reopened.count());
+        assertEquals(IMAGE_BYTES, reopened.size());
+        assertEquals(1, mDir.list().length);
+    }
+
+    @Test
+    public void put_refusesOversizedImages() throws IOException {
+        ImageDiskCache cache = new ImageDiskCache(mDir, Long.MAX_VALUE);
+        try {
+            cache.put("huge", new ByteArrayInputStream(new byte[3 * 1024 * 1024]));
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // The partial download is not left behind.
+        }
+
+        assertNull(cache.get("huge"));
+        assertEquals(0, mDir.list().length);
+    }
+
+    @Test
+    public void fetch_downloadsOnce() {
+        byte[] body = new byte[IMAGE_BYTES];
+        Arrays.fill(body, (byte) 7);
+        mServer.setResponse(body, null);
+        ImageDiskCache cache = new ImageDiskCache(mDir, 10 * IMAGE_BYTES);
+        HttpTransport transport = new PooledHttpClient(2, 1000, 1000, true, null);
+        String url = mServer.url("thumbnail=1");
+
+        File first = cache.fetch(transport, url);
+        File second = cache.fetch(transport, url);
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertEquals(1, mServer.requests());
+        assertEquals(IMAGE_BYTES, first.length());
+    }
+
+    @Test
+    public void fetch_failsOnErrorStatus() {
+        mServer.enqueueStatus(404, null);
+        ImageDiskCache cache = new ImageDiskCache(mDir, 10 * IMAGE_BYTES);
+
+        assertNull(cache.fetch(new PooledHttpClient(2, 1000, 1000, true, null),
+                mServer.url("thumbnail=missing")));
+        assertEquals(0, cache.count());
+    }
+
+    private static ByteArrayInputStream image(int seed) {
+        byte[] bytes = new byte[IMAGE_BYTES];
+        Arrays.fill(bytes, (byte) seed);
+        return new ByteArrayInputStream(bytes);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.news_reader;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class IsoDatesTest {
+
+    @Test
+    public void parse_matchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String[] dates = {"2018-07-23T09:30:00Z", "2016-02-29T23:59:59Z", "1970-01-01T00:00:00Z"};
+        for (String date : dates) {
+            assertEquals(date, format.parse(date).getTime(), IsoDates.parse(date));
+        }
+    }
+
+    @Test
+    public void parse_appliesOffsetAndFraction() {
+        assertEquals(IsoDates.parse("2018-07-23T08:30:00Z") + 250,
+                IsoDates.parse("2018-07-23T09:30:00.250+01:00"));
+    }
+
+    @Test
+    public void parse_returnsZeroForGarbage() {
+        assertEquals(0, IsoDates.parse(""));
+        assertEquals(0, IsoDates.parse("yesterday at noon"));
+        assertEquals(0, IsoDates.parse(null));
+    }
+
+    @Test
+    public void formatDay_dropsTheTimeOfDay() {
+        assertEquals("2018-07-23", IsoDates.formatDay(IsoDates.parse("2018-07-23T23:59:59Z")));
+        assertEquals("1969-12-31", IsoDates.formatDay(-1));
+    }
+
+    @Test
+    public void format_roundTripsToTheSecond() {
+        assertEquals("2018-07-23T09:05:07Z",
+                IsoDates.format(IsoDates.parse("2018-07-23T09:05:07.999Z")));
+        assertEquals("1969-12-31T23:59:59Z", IsoDates.format(-1000));
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.android.news_reader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * In-process stand-in for content.guardianapis.com. Serves one search response for every
+ * path, honours ETag validators and gzip, and counts what went over the wire.
+ */
+class LocalGuardianServer implements HttpHandler {
+
+    private static final char[] KEYSTORE_PASSWORD = "changeit".toCharArray();
+
+    // Fault status for a 200 response whose body stops half way.
+    private static final int TRUNCATED = -1;
+
+    private final HttpServer mServer;
+    private final String mScheme;
+    private final Set<Integer> mClientPorts =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private final AtomicInteger mRequests = new AtomicInteger();
+    private final AtomicInteger mNotModified = new AtomicInteger();
+    private final AtomicLong mBodyBytes = new AtomicLong();
+    private volatile String mLastQuery;
+
+    private volatile byte[] mBody = GuardianResponses.searchBytes(0);
+    private volatile byte[] mGzipBody = gzip(mBody);
+    private volatile String mETag;
+
+    // Artificial latency for requests whose query contains the key.
+    private final Map<String, Long> mDelays = new ConcurrentHashMap<>();
+
+    // Scripted failures, one used up per request, before the normal response is served.
+    private final Queue<Fault> mFaults = new ConcurrentLinkedQueue<>();
+
+    // Headers added to every normal response.
+    private final Map<String, String> mExtraHeaders = new ConcurrentHashMap<>();
+
+    // Random failures: a share of requests is reset or throttled, and every request is delayed
+    // by up to the given latency.
+    private volatile Random mChaos;
+    private volatile double mResetRate;
+    private volatile double mThrottleRate;
+    private volatile long mMaxLatency;
+
+    /**
+     * Starts a plain HTTP server.
+     */
+    LocalGuardianServer() throws IOException {
+        this(null);
+    }
+
+    /**
+     * Starts an HTTPS server using the given context, or a plain HTTP server if it is null.
+     */
+    LocalGuardianServer(SSLContext sslContext) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        if (sslContext != null) {
+            HttpsServer server = HttpsServer.create(address, 0);
+            server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+            mServer = server;
+            mScheme = "https://localhost:";
+        } else {
+            mServer = HttpServer.create(address, 0);
+            mScheme = "http://127.0.0.1:";
+        }
+        mServer.createContext("/", this);
+        // Serve requests concurrently, like the real API.
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.start();
+    }
+
+    /**
+     * Returns a TLS context that both serves and trusts the self-signed localhost certificate
+     * in the test resources.
+     */
+    static SSLContext localhostSslContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        InputStream in = LocalGuardianServer.class.getResourceAsStream("/localhost.p12");
+        try {
+            keyStore.load(in, KEYSTORE_PASSWORD);
+        } finally {
+            in.close();
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(keyStore, KEYSTORE_PASSWORD);
+        TrustManagerFactory trust =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trust.init(keyStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keys.getKeyManagers(), trust.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    /**
+     * Returns a search URL on this server.
+     */
+    String url(String query) {
+        return mScheme + mServer.getAddress().getPort() + "/search?" + query;
+    }
+
+    /**
+     * Replaces the response served from now on. A new body gets a new ETag.
+     */
+    void setResponse(byte[] body, String eTag) {
+        mBody = body;
+        mGzipBody = gzip(body);
+        mETag = eTag;
+    }
+
+    /**
+     * Delays every response to a request whose query string contains {@code match}.
+     */
+    void setDelay(String match, long millis) {
+        mDelays.put(match, millis);
+    }
+
+    /**
+     * Answers the next request with the given status and Retry-After header (if not null).
+     */
+    void enqueueStatus(int status, String retryAfter) {
+        mFaults.add(new Fault(status, retryAfter));
+    }
+
+    /**
+     * Drops the connection of the next request without answering it.
+     */
+    void enqueueReset() {
+        mFaults.add(new Fault(0, null));
+    }
+
+    /**
+     * Answers the next request with 200 and the normal headers, but ends the body half way,
+     * as a dropped connection would.
+     */
+    void enqueueTruncated() {
+        mFaults.add(new Fault(TRUNCATED, null));
+    }
+
+    /**
+     * Adds a header to every normal response.
+     */
+    void setHeader(String name, String value) {
+        mExtraHeaders.put(name, value);
+    }
+
+    /**
+     * Resets {@code resetRate} and answers 429 to {@code throttleRate} of the requests at
+     * random, and delays every request by up to {@code maxLatency} ms.
+     */
+    void setChaos(long seed, double resetRate, double throttleRate, long maxLatency) {
+        mResetRate = resetRate;
+        mThrottleRate = throttleRate;
+        mMaxLatency = maxLatency;
+        mChaos = new Random(seed);
+    }
+
+    /**
+     * Returns the query string of the last request, or null if there was none.
+     */
+    String lastQuery() {
+        return mLastQuery;
+    }
+
+    int requests() {
+        return mRequests.get();
+    }
+
+    int notModified() {
+        return mNotModified.get();
+    }
+
+    long bodyBytes() {
+        return mBodyBytes.get();
+    }
+
+    /**
+     * Returns the number of distinct client connections seen since the last reset.
+     */
+    int connections() {
+        return mClientPorts.size();
+    }
+
+    void resetCounters() {
+        mClientPorts.clear();
+        mRequests.set(0);
+        mNotModified.set(0);
+        mBodyBytes.set(0);
+    }
+
+    void stop() {
+        mServer.stop(0);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        mRequests.incrementAndGet();
+        mClientPorts.add(exchange.getRemoteAddress().getPort());
+        String query = exchange.getRequestURI().getRawQuery();
+        mLastQuery = query;
+        for (Map.Entry<String, Long> delay : mDelays.entrySet()) {
+            if (query != null && query.contains(delay.getKey())) {
+                sleep(delay.getValue());
+            }
+        }
+        Fault fault = mFaults.poll();
+        Random chaos = mChaos;
+        if (fault == null && chaos != null) {
+            double roll;
+            long latency;
+            synchronized (chaos) {
+                roll = chaos.nextDouble();
+                latency = mMaxLatency > 0 ? (long) (chaos.nextDouble() * mMaxLatency) : 0;
+            }
+            sleep(latency);
+            if (roll < mResetRate) {
+                fault = new Fault(0, null);
+            } else if (roll < mResetRate + mThrottleRate) {
+                fault = new Fault(429, null);
+            }
+        }
+        boolean truncated = fault != null && fault.mStatus == TRUNCATED;
+        if (fault != null && !truncated) {
+            if (fault.mStatus == 0) {
+                // Close the connection without a response, as a reset would.
+                exchange.getRequestBody().close();
+                exchange.close();
+                return;
+            }
+            if (fault.mRetryAfter != null) {
+                exchange.getResponseHeaders().set("Retry-After", fault.mRetryAfter);
+            }
+            exchange.sendResponseHeaders(fault.mStatus, -1);
+            exchange.close();
+            return;
+        }
+
+        for (Map.Entry<String, String> header : mExtraHeaders.entrySet()) {
+            exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+        }
+        String eTag = mETag;
+        if (eTag != null) {
+            exchange.getResponseHeaders().set("ETag", eTag);
+            if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                mNotModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+
+        byte[] body = mBody;
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = mGzipBody;
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        int length = truncated ? body.length / 2 : body.length;
+        // Count before writing: the client may read the counters as soon as it has the body.
+        mBodyBytes.addAndGet(length);
+        // A truncated body is sent chunked, so it ends cleanly and only its content is short.
+        exchange.sendResponseHeaders(200, truncated ? 0 : body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body, 0, length);
+        out.close();
+    }
+
+    private static class Fault {
+        final int mStatus;
+        final String mRetryAfter;
+
+        Fault(int status, String retryAfter) {
+            mStatus = status;
+            mRetryAfter = retryAfter;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            GZIPOutputStream out = new GZIPOutputStream(bytes);
+            out.write(body);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
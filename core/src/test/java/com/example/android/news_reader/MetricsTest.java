@@ -0,0 +1,67 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void histogram_percentilesAreWithinABucket() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertWithin(500000, histogram.getPercentile(50));
+        assertWithin(990000, histogram.getPercentile(99));
+        assertEquals(1000000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        long start = Metrics.start();
+        Metrics.stop(Metrics.PARSE, start);
+        Metrics.count(Metrics.ARTICLES_PARSED, 5);
+
+        assertEquals(0, start);
+        assertEquals(0, Metrics.histogram(Metrics.PARSE).getCount());
+        assertEquals(0, Metrics.getCount(Metrics.ARTICLES_PARSED));
+    }
+
+    @Test
+    public void parse_isTimedAndCounted() {
+        Metrics.setEnabled(true);
+
+        QueryUtils.extractArticlesFromStream(
+                new ByteArrayInputStream(GuardianResponses.searchBytes(7)));
+
+        assertEquals(1, Metrics.histogram(Metrics.PARSE).getCount());
+        assertEquals(7, Metrics.getCount(Metrics.ARTICLES_PARSED));
+
+        StringWriter dump = new StringWriter();
+        Metrics.dump(new PrintWriter(dump));
+        assertTrue(dump.toString().contains(Metrics.PARSE + " "));
+        assertTrue(dump.toString().contains(Metrics.ARTICLES_PARSED));
+    }
+
+    // Buckets split each power of two in eight, so a percentile is off by at most an eighth.
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " should be close to " + expected,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+}
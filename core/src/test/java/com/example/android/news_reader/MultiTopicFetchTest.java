@@ -0,0 +1,78 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a multi-topic feed is fetched in parallel and merged by date without duplicates.
+ */
+public class MultiTopicFetchTest {
+
+    private static final long SLOW_TOPIC = 400;
+
+    private LocalGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mServer.setResponse(GuardianResponses.searchBytes(10), null);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void merge_ordersByDateAndDropsDuplicates() {
+        List<Article> first = Arrays.asList(
+                article("a", "2018-07-23T10:00:00Z"), article("b", "2018-07-21T10:00:00Z"));
+        List<Article> second = Arrays.asList(
+                article("c", "2018-07-22T10:00:00Z"), article("a", "2018-07-23T10:00:00Z"),
+                article("d", "2018-07-20T10:00:00Z"));
+
+        List<Article> merged = QueryUtils.mergeByDate(
+                new ArrayList<>(Arrays.asList(first, second)), true);
+
+        assertEquals(4, merged.size());
+        assertEquals("a", merged.get(0).getmWebUrl());
+        assertEquals("c", merged.get(1).getmWebUrl());
+        assertEquals("b", merged.get(2).getmWebUrl());
+        assertEquals("d", merged.get(3).getmWebUrl());
+    }
+
+    @Test
+    public void topics_areFetchedInParallel() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String topic = "topic" + i;
+            mServer.setDelay(topic, SLOW_TOPIC);
+            urls.add(mServer.url("q=" + topic));
+        }
+
+        long start = System.nanoTime();
+        List<Article> articles = QueryUtils.fetchArticleData(urls, true);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        System.out.printf("4 topics of %d ms each fetched in %d ms%n", SLOW_TOPIC, millis);
+
+        assertNotNull(articles);
+        // Every topic served the same results, so the merged feed holds each article once.
+        assertEquals(10, articles.size());
+        assertEquals(4, mServer.requests());
+        assertTrue(millis < SLOW_TOPIC * 2);
+    }
+
+    private static Article article(String webUrl, String pubDate) {
+        return new Article("Title", "Technology", IsoDates.parse(pubDate), "Writer", webUrl);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that callers asking for the same URL at the same moment share one upstream request.
+ */
+public class RequestCoalescingTest {
+
+    private static final int CALLERS = 8;
+    private static final long SLOW_RESPONSE = 300;
+    private static final int RESULTS = 10;
+
+    private LocalGuardianServer mServer;
+    private ExecutorService mCallers;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), null);
+        mCallers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        mCallers.shutdownNow();
+        mServer.stop();
+    }
+
+    @Test
+    public void concurrentCallers_shareOneRequest() throws Exception {
+        mServer.setDelay("q=coalesced", SLOW_RESPONSE);
+        final String url = mServer.url("q=coalesced&page=1");
+        // The same request with its parameters in another order.
+        final String reordered = mServer.url("page=1&q=coalesced");
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<Article>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            final String callerUrl = i % 2 == 0 ? url : reordered;
+            results.add(mCallers.submit(new Callable<List<Article>>() {
+                @Override
+                public List<Article> call() throws Exception {
+                    start.await();
+                    return QueryUtils.fetchArticleData(callerUrl);
+                }
+            }));
+        }
+        start.countDown();
+
+        for (Future<List<Article>> result : results) {
+            List<Article> articles = result.get();
+            assertNotNull(articles);
+            assertEquals(RESULTS, articles.size());
+        }
+        System.out.printf("%d concurrent callers: %d upstream requests%n",
+                CALLERS, mServer.requests());
+        assertEquals(1, mServer.requests());
+    }
+
+    @Test
+    public void cancelledCaller_leavesTheSharedRequestToTheOthers() throws Exception {
+        mServer.setDelay("q=toggled", SLOW_RESPONSE);
+        final String url = mServer.url("q=toggled");
+        final CancellationToken first = new CancellationToken();
+
+        // The first caller runs the request on its own thread, the second waits for it.
+        Future<List<Article>> cancelled = mCallers.submit(new Callable<List<Article>>() {
+            @Override
+            public List<Article> call() {
+                CancellationToken.setCurrent(first);
+                try {
+                    return QueryUtils.fetchArticleData(url);
+                } finally {
+                    CancellationToken.setCurrent(null);
+                }
+            }
+        });
+        Thread.sleep(SLOW_RESPONSE / 6);
+        Future<List<Article>> waiting = mCallers.submit(new Callable<List<Article>>() {
+            @Override
+            public List<Article> call() {
+                CancellationToken.setCurrent(new CancellationToken());
+                try {
+                    return QueryUtils.fetchArticleData(url);
+                } finally {
+                    CancellationToken.setCurrent(null);
+                }
+            }
+        });
+        Thread.sleep(SLOW_RESPONSE / 6);
+        first.cancel();
+
+        assertNull(cancelled.get());
+        List<Article> articles = waiting.get();
+        assertNotNull(articles);
+        assertEquals(RESULTS, articles.size());
+        assertEquals(1, mServer.requests());
+    }
+
+    @Test
+    public void laterCallers_startANewRequest() {
+        String url = mServer.url("q=sequential");
+
+        QueryUtils.fetchArticleData(url);
+        QueryUtils.fetchArticleData(url);
+
+        // The first request finished before the second was asked for, so nothing is shared.
+        assertEquals(2, mServer.requests());
+    }
+}
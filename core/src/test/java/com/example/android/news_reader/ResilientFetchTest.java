@@ -0,0 +1,229 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the fetch path against a local server that injects latency, dropped connections and
+ * 429s, and checks the retries, the circuit breaker and the rate-limit handling.
+ */
+public class ResilientFetchTest {
+
+    private static final int RESULTS = 10;
+    private static final int FETCHES = 100;
+
+    private LocalGuardianServer mServer;
+    private HttpTransport mTransport;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new LocalGuardianServer();
+        mTransport = QueryUtils.getHttpTransport();
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), null);
+        QueryUtils.resetCircuitBreakers();
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 20, 200, 2000, new Random(7)));
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+        QueryUtils.setHttpTransport(mTransport);
+        QueryUtils.resetCircuitBreakers();
+        QueryUtils.setRetryPolicy(new RetryPolicy(3, 500, 4000, 5000, new Random()));
+    }
+
+    @Test
+    public void transientFailures_areRetried() {
+        mServer.enqueueReset();
+        mServer.enqueueStatus(503, null);
+
+        assertNotNull(QueryUtils.fetchArticleData(mServer.url("q=flaky")));
+        assertEquals(3, mServer.requests());
+    }
+
+    @Test
+    public void truncatedBody_isRetriedAndNotCached() {
+        mServer.setResponse(GuardianResponses.searchBytes(RESULTS), "\"v1\"");
+        mServer.enqueueTruncated();
+        String url = mServer.url("q=truncated");
+
+        List<Article> articles = QueryUtils.fetchArticleData(url);
+        assertEquals(RESULTS, articles.size());
+        assertEquals(2, mServer.requests());
+        // Only the whole response was kept to make the next request conditional.
+        assertEquals(RESULTS, QueryUtils.getCachedResponse(url).getArticles().size());
+    }
+
+    @Test
+    public void clientErrors_areNotRetried() {
+        mServer.enqueueStatus(403, null);
+
+        assertNull(QueryUtils.fetchArticleData(mServer.url("q=forbidden")));
+        assertEquals(1, mServer.requests());
+    }
+
+    @Test
+    public void retryAfter_isWaitedFor() {
+        mServer.enqueueStatus(429, "1");
+
+        long start = System.nanoTime();
+        assertNotNull(QueryUtils.fetchArticleData(mServer.url("q=throttled")));
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(2, mServer.requests());
+        assertTrue(millis >= 1000);
+    }
+
+    @Test
+    public void longRetryAfter_stopsRequestsUntilItPasses() {
+        mServer.enqueueStatus(429, "120");
+
+        assertNull(QueryUtils.fetchArticleData(mServer.url("q=quota")));
+        assertNull(QueryUtils.fetchArticleData(mServer.url("q=other")));
+
+        // Neither the retry nor the second request were sent.
+        assertEquals(1, mServer.requests());
+    }
+
+    @Test
+    public void exhaustedQuota_stopsFurtherRequests() {
+        mServer.setHeader("X-RateLimit-Remaining-day", "0");
+
+        assertNotNull(QueryUtils.fetchArticleData(mServer.url("q=last")));
+        assertNull(QueryUtils.fetchArticleData(mServer.url("q=next")));
+
+        assertEquals(1, mServer.requests());
+    }
+
+    @Test
+    public void outage_opensTheBreaker() {
+        for (int i = 0; i < 20; i++) {
+            mServer.enqueueStatus(503, null);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(QueryUtils.fetchArticleData(mServer.url("q=outage" + i)));
+        }
+
+        // Two fetches of three attempts trip the breaker on the fifth failure; the rest are
+        // refused without a request.
+        assertEquals(5, mServer.requests());
+    }
+
+    @Test
+    public void breaker_letsOneTrialThroughOnceOpenDurationPassed() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertFalse(breaker.allowRequest(500));
+        assertTrue(breaker.allowRequest(1000));
+        assertFalse(breaker.allowRequest(1001));
+        breaker.onSuccess();
+        assertTrue(breaker.allowRequest(1002));
+    }
+
+    @Test
+    public void breaker_handsOnATrialItsCallerAbandoned() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertTrue(breaker.allowRequest(1000));
+        // The trial request was cancelled before it had an answer.
+        breaker.releaseTrial();
+        assertTrue(breaker.allowRequest(1001));
+        assertFalse(breaker.allowRequest(1002));
+    }
+
+    @Test
+    public void unexpectedException_endsTheTrialItHappenedIn() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        QueryUtils.setHttpTransport(new HttpTransport() {
+            @Override
+            public Response get(URL url, Map<String, String> headers) {
+                calls.incrementAndGet();
+                throw new NumberFormatException("For input string: \"many\"");
+            }
+        });
+        String url = mServer.url("q=malformed");
+        // Opened long ago, so the next request is the trial.
+        CircuitBreaker breaker = QueryUtils.getCircuitBreaker(url);
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure(0);
+        }
+
+        assertNull(QueryUtils.fetchArticleData(url));
+
+        // Not retried, and the failed trial opened the breaker again instead of leaving it
+        // waiting for an answer for good.
+        assertEquals(1, calls.get());
+        long now = System.currentTimeMillis();
+        assertTrue(breaker.isOpen(now));
+        assertTrue(breaker.allowRequest(now + 60000));
+    }
+
+    @Test
+    public void retryAfter_parsesSecondsAndDates() {
+        assertEquals(120000, RetryPolicy.parseRetryAfter("120", 0));
+        assertEquals(30000, RetryPolicy.parseRetryAfter("Thu, 01 Jan 1970 00:00:30 GMT", 0));
+        assertEquals(0, RetryPolicy.parseRetryAfter("soon", 0));
+        assertEquals(0, RetryPolicy.parseRetryAfter(null, 0));
+    }
+
+    @Test
+    public void chaos_reportsTimeToResult() {
+        mServer.setChaos(42, 0.1, 0.1, 20);
+
+        long[] withRetries = timeFetches("q=chaos-retry");
+        int retriedSuccesses = (int) withRetries[FETCHES];
+
+        QueryUtils.resetCircuitBreakers();
+        QueryUtils.setRetryPolicy(new RetryPolicy(1, 20, 200, 2000, new Random(7)));
+        long[] withoutRetries = timeFetches("q=chaos-once");
+        int singleSuccesses = (int) withoutRetries[FETCHES];
+
+        System.out.printf("%d fetches, 10%% resets, 10%% 429s, up to 20 ms latency:%n"
+                        + "  with retries:    %d ok, p50 %.1f ms, p99 %.1f ms%n"
+                        + "  without retries: %d ok, p50 %.1f ms, p99 %.1f ms%n",
+                FETCHES, retriedSuccesses, percentile(withRetries, 50),
+                percentile(withRetries, 99), singleSuccesses, percentile(withoutRetries, 50),
+                percentile(withoutRetries, 99));
+
+        assertTrue(retriedSuccesses > singleSuccesses);
+        assertTrue(retriedSuccesses >= FETCHES * 95 / 100);
+    }
+
+    // Times FETCHES sequential fetches in microseconds; the extra last slot counts successes.
+    private long[] timeFetches(String query) {
+        long[] times = new long[FETCHES + 1];
+        for (int i = 0; i < FETCHES; i++) {
+            long start = System.nanoTime();
+            if (QueryUtils.fetchArticleData(mServer.url(query + "&page=" + i)) != null) {
+                times[FETCHES]++;
+            }
+            times[i] = (System.nanoTime() - start) / 1000;
+        }
+        return times;
+    }
+
+    private static double percentile(long[] times, int percentile) {
+        long[] sorted = Arrays.copyOf(times, FETCHES);
+        Arrays.sort(sorted);
+        return sorted[Math.min(FETCHES - 1, FETCHES * percentile / 100)] / 1000.0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.android.news_reader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that {@link StartupSnapshot} keeps the first screen of the last feed shown, and that
+ * a launch without one, or with a damaged one, simply goes without.
+ */
+public class StartupSnapshotTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void write_keepsTheFirstScreen() throws Exception {
+        File cacheDir = mFolder.newFolder("cache");
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < StartupSnapshot.MAX_ARTICLES + 10; i++) {
+            articles.add(new Article("Headline " + i, "Technology", 1532338200000L - i * 60000L,
+                    "Writer " + (i % 4), GuardianResponses.webUrl(i),
+                    GuardianResponses.thumbnailUrl(i)));
+        }
+
+        StartupSnapshot.write(cacheDir, articles);
+
+        assertEquals(articles.subList(0, StartupSnapshot.MAX_ARTICLES),
+                StartupSnapshot.read(cacheDir));
+        // Only the snapshot itself is left behind.
+        assertEquals(1, cacheDir.list().length);
+    }
+
+    @Test
+    public void read_goesWithoutAMissingOrDamagedSnapshot() throws Exception {
+        File cacheDir = mFolder.newFolder("cache");
+        assertNull(StartupSnapshot.read(cacheDir));
+
+        StartupSnapshot.write(cacheDir, Collections.<Article>emptyList());
+        assertNull(StartupSnapshot.read(cacheDir));
+
+        FileOutputStream out = new FileOutputStream(new File(cacheDir, cacheDir.list()[0]));
+        out.write(GuardianResponses.searchBytes(1));
+        out.close();
+        assertNull(StartupSnapshot.read(cacheDir));
+    }
+}
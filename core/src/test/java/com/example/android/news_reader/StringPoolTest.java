@@ -0,0 +1,46 @@
+package com.example.android.news_reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that equal strings share one instance, and that the pool stops growing at its cap.
+ */
+public class StringPoolTest {
+
+    @Before
+    public void setUp() {
+        StringPool.clear();
+    }
+
+    @After
+    public void tearDown() {
+        StringPool.clear();
+    }
+
+    @Test
+    public void intern_sharesEqualStrings() {
+        String first = StringPool.intern(new String("World news"));
+
+        assertSame(first, StringPool.intern(new String("World news")));
+        assertNull(StringPool.intern(null));
+    }
+
+    @Test
+    public void fullPool_handsNewStringsBackAsTheyAre() {
+        String kept = StringPool.intern(new String("Technology"));
+        for (int i = 1; i < StringPool.MAX_SIZE; i++) {
+            StringPool.intern("Writer " + i);
+        }
+
+        String late = new String("Writer " + StringPool.MAX_SIZE);
+        assertSame(late, StringPool.intern(late));
+        assertNotSame(StringPool.intern(new String(late)), late);
+        assertSame(kept, StringPool.intern(new String("Technology")));
+    }
+}